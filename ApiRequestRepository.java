@@ -1,5 +1,10 @@
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 public interface ApiRequestRepository extends MongoRepository<ApiRequest, String> {
     ApiRequest findByRequestId(String requestId);
+
+    // Lean dedup lookup: only requestId, status and the claim's age come back, the payload stays on the server
+    @Query(value = "{ 'requestId' : ?0 }", fields = "{ 'requestId' : 1, 'status' : 1, 'claimedAt' : 1, 'timestamp' : 1 }")
+    ApiRequest findStatusByRequestId(String requestId);
 }
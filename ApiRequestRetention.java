@@ -0,0 +1,155 @@
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps api_requests down to the dedup window. Requests older than the window are moved to
+ * api_requests_archive, so the hot collection and its requestId index only hold what dedup
+ * still needs. Archived requests keep their {@code _id} and payload as stored, so a request
+ * that recurs after the window and is archived again sits next to the first one. A TTL index
+ * on {@code timestamp} is the backstop: it drops anything the archiver hasn't moved within
+ * the window plus the grace period, payload included, so keep the grace well above the
+ * archive interval.
+ */
+@Component
+public class ApiRequestRetention {
+    private static final Logger logger = LoggerFactory.getLogger(ApiRequestRetention.class);
+    private static final String HOT_COLLECTION = "api_requests";
+    private static final String ARCHIVE_COLLECTION = "api_requests_archive";
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration dedupWindow;
+    private final Duration ttlGrace;
+    private final int batchSize;
+
+    private final LongAdder archived = new LongAdder();
+
+    public ApiRequestRetention(MongoTemplate mongoTemplate,
+                               @Value("${api.requests.retention.dedup-window:30d}") Duration dedupWindow,
+                               @Value("${api.requests.retention.ttl-grace:7d}") Duration ttlGrace,
+                               @Value("${api.requests.retention.archive-batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.dedupWindow = dedupWindow;
+        this.ttlGrace = ttlGrace;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void ensureIndexes() {
+        Duration ttl = dedupWindow.plus(ttlGrace);
+        try {
+            mongoTemplate.indexOps(HOT_COLLECTION)
+                .ensureIndex(new Index().on("timestamp", Sort.Direction.ASC).expire(ttl).named("timestamp_ttl"));
+        } catch (DataAccessException e) {
+            if (!isIndexConflict(e)) {
+                throw e;
+            }
+            // The TTL index exists with another expiry: change it in place instead of rebuilding
+            mongoTemplate.executeCommand(new Document("collMod", HOT_COLLECTION)
+                .append("index", new Document("keyPattern", new Document("timestamp", 1))
+                    .append("expireAfterSeconds", ttl.toSeconds())));
+            logger.info("Updated api_requests TTL to {}", ttl);
+        }
+        MongoCollection<Document> archive = mongoTemplate.getCollection(ARCHIVE_COLLECTION);
+        try {
+            archive.createIndex(Indexes.ascending("requestId"), new IndexOptions().name("requestId_1"));
+        } catch (MongoException e) {
+            if (!isIndexConflict(e)) {
+                throw e;
+            }
+            // Earlier versions kept one archived request per requestId under a unique index
+            archive.dropIndex("requestId_1");
+            archive.createIndex(Indexes.ascending("requestId"), new IndexOptions().name("requestId_1"));
+            logger.info("Replaced unique requestId index on {}", ARCHIVE_COLLECTION);
+        }
+    }
+
+    // 85 IndexOptionsConflict, 86 IndexKeySpecsConflict; anything else (auth, network) is a real failure
+    private static boolean isIndexConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongo) {
+                return mongo.getCode() == 85 || mongo.getCode() == 86;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves requests older than the dedup window to the archive, oldest first, one batch at a
+     * time. Safe to rerun after a crash: the archive upsert is keyed by the request's _id.
+     */
+    @Scheduled(fixedDelayString = "${api.requests.retention.archive-interval-ms:300000}")
+    public void archiveExpired() {
+        MongoCollection<Document> hot = mongoTemplate.getCollection(HOT_COLLECTION);
+        MongoCollection<Document> archive = mongoTemplate.getCollection(ARCHIVE_COLLECTION);
+        Date cutoff = new Date(System.currentTimeMillis() - dedupWindow.toMillis());
+        long moved = 0;
+        List<Document> batch = new ArrayList<>(batchSize);
+        do {
+            batch.clear();
+            hot.find(Filters.lt("timestamp", cutoff))
+                .sort(Sorts.ascending("timestamp"))
+                .limit(batchSize)
+                .into(batch);
+            if (batch.isEmpty()) break;
+
+            List<ReplaceOneModel<Document>> writes = new ArrayList<>(batch.size());
+            List<Object> ids = new ArrayList<>(batch.size());
+            for (Document doc : batch) {
+                writes.add(new ReplaceOneModel<>(Filters.eq("_id", doc.get("_id")),
+                    toArchived(doc), new ReplaceOptions().upsert(true)));
+                ids.add(doc.get("_id"));
+            }
+            archive.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            hot.deleteMany(Filters.in("_id", ids));
+            moved += batch.size();
+        } while (batch.size() == batchSize);
+
+        if (moved > 0) {
+            archived.add(moved);
+            logger.info("Archived {} api_requests older than {}", moved, cutoff);
+        }
+    }
+
+    // The payload stays a BSON subdocument, so ObjectId, Decimal128 and dates keep their types
+    private Document toArchived(Document doc) {
+        Document archivedDoc = new Document("_id", doc.get("_id"))
+            .append("requestId", doc.getString("requestId"))
+            .append("status", doc.getString("status"))
+            .append("endpoint", doc.getString("endpoint"))
+            .append("timestamp", doc.getDate("timestamp"))
+            .append("archivedAt", new Date());
+        Object payload = doc.get("payload");
+        if (payload != null) {
+            archivedDoc.append("payload", payload);
+        }
+        return archivedDoc;
+    }
+
+    public long getArchivedCount() {
+        return archived.sum();
+    }
+}
@@ -1,71 +1,236 @@
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 @Service
 public class ApiRequestService {
+    private static final Logger logger = LoggerFactory.getLogger(ApiRequestService.class);
     
     private final ApiRequestRepository repository;
     private final MongoTemplate mongoTemplate;
+    private final ExecutorService blockingWorkExecutor;
+    private final RequestIdDedupFilter dedupFilter;
+    private final ApiRequestStatusBatcher statusBatcher;
+    private final boolean claimFirst;
+    private final CanonicalRequestHasher requestHasher;
+    private final OutboundApiClient outboundClient;
+    private final boolean leanLookups;
+    private final long claimLeaseMs;
+    private final HotPathMetrics metrics;
     private static final ObjectMapper objectMapper = new ObjectMapper();
     
-    public ApiRequestService(ApiRequestRepository repository, MongoTemplate mongoTemplate) {
+    public ApiRequestService(ApiRequestRepository repository, MongoTemplate mongoTemplate,
+                             @Qualifier("blockingWorkExecutor") ExecutorService blockingWorkExecutor,
+                             RequestIdDedupFilter dedupFilter,
+                             ApiRequestStatusBatcher statusBatcher,
+                             OutboundApiClient outboundClient,
+                             @Value("${api.requests.claim-first:true}") boolean claimFirst,
+                             @Value("${api.requests.id-hashing:COMPAT}") CanonicalRequestHasher.Mode hashingMode,
+                             @Value("${api.requests.lean-lookups:false}") boolean leanLookups,
+                             @Value("${api.requests.claim-lease-ms:120000}") long claimLeaseMs,
+                             HotPathMetrics metrics) {
         this.repository = repository;
         this.mongoTemplate = mongoTemplate;
+        this.blockingWorkExecutor = blockingWorkExecutor;
+        this.dedupFilter = dedupFilter;
+        this.statusBatcher = statusBatcher;
+        this.outboundClient = outboundClient;
+        this.claimFirst = claimFirst;
+        this.requestHasher = new CanonicalRequestHasher(objectMapper, hashingMode);
+        this.leanLookups = leanLookups;
+        this.claimLeaseMs = claimLeaseMs;
+        this.metrics = metrics;
     }
 
     public String generateRequestId(Map<String, Object> requestParams) throws Exception {
-        Map<String, Object> sortedParams = sortMapKeys(requestParams);
-        String paramString = objectMapper.writeValueAsString(sortedParams);
-        
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hash = digest.digest(paramString.getBytes());
-        return bytesToHex(hash);
-    }
-
-    private Map<String, Object> sortMapKeys(Map<String, Object> map) {
-        return new TreeMap<>(map);
+        return requestHasher.hash(requestParams);
     }
 
-    private static String bytesToHex(byte[] hash) {
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : hash) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) hexString.append('0');
-            hexString.append(hex);
-        }
-        return hexString.toString();
+    /**
+     * Runs {@link #makeApiRequest} on the blocking-work executor (a virtual thread on Java 21+),
+     * so the Mongo lookups and the outbound call don't hold the caller's thread, e.g. a Kafka
+     * consumer thread while a slow partner answers.
+     */
+    public CompletableFuture<ApiRequest> makeApiRequestAsync(Map<String, Object> requestParams, String endpoint) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return makeApiRequest(requestParams, endpoint);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, blockingWorkExecutor);
     }
 
     public ApiRequest makeApiRequest(Map<String, Object> requestParams, String endpoint) throws Exception {
         String requestId = generateRequestId(requestParams);
+        if (claimFirst) {
+            return claimAndCall(requestId, requestParams, endpoint);
+        }
         
-        // Check for existing request
-        ApiRequest existing = repository.findByRequestId(requestId);
+        // Check for existing request; Mongo is only skipped for a local hit, or when the filter
+        // rules the id out on a single-writer deployment (see RequestIdDedupFilter)
+        ApiRequest existing = dedupFilter.recent(requestId);
+        if ((existing == null || isExpiredClaim(existing)) && dedupFilter.mightContain(requestId)) {
+            existing = findExisting(requestId);
+        }
         if (existing != null) {
-            System.out.println("Duplicate request detected - skipping");
-            return existing;
+            return duplicateOrReclaim(requestId, existing, requestParams, endpoint);
         }
+        metrics.newRequest();
 
         try {
-            // Make your API call here (e.g., using RestTemplate)
-            // ResponseEntity<String> response = restTemplate.postForEntity(endpoint, requestParams, String.class);
+            // Bounded by the client's timeouts; fails fast when the endpoint's circuit is open
+            outboundClient.post(endpoint, requestParams);
             
             // If successful, save with status "success"
             ApiRequest request = new ApiRequest(requestId, "success", endpoint, requestParams);
-            return repository.save(request);
+            ApiRequest saved = save(request);
+            dedupFilter.record(requestId, saved);
+            return saved;
             
         } catch (DuplicateKeyException e) {
-            System.out.println("Duplicate request detected concurrently");
-            return repository.findByRequestId(requestId);
+            metrics.concurrentDuplicate();
+            logger.debug("Duplicate request {} detected concurrently", requestId);
+            return findExisting(requestId);
         } catch (Exception e) {
             // Save failed attempt
             ApiRequest request = new ApiRequest(requestId, "failure", endpoint, requestParams);
-            repository.save(request);
+            dedupFilter.record(requestId, save(request));
             throw e;
         }
     }
+
+    /**
+     * Insert-first path: the pending insert is both the duplicate check and the claim, so there
+     * is no read before the write and concurrent duplicates never reach the external call.
+     * The final status is written later by {@link ApiRequestStatusBatcher}. A duplicate may
+     * come back still pending while its first caller is in flight.
+     *
+     * <p>The claim is a lease: a document still pending claimLeaseMs after claimedAt belongs to
+     * a caller that died before writing its status, and the next duplicate takes it over.
+     */
+    private ApiRequest claimAndCall(String requestId, Map<String, Object> requestParams, String endpoint) throws Exception {
+        ApiRequest recent = dedupFilter.recent(requestId);
+        if (recent != null && !isExpiredClaim(recent)) {
+            metrics.duplicateRequest();
+            logger.debug("Duplicate request {} detected - skipping", requestId);
+            return recent;
+        }
+
+        ApiRequest request = new ApiRequest(requestId, "pending", endpoint, requestParams);
+        request.setClaimedAt(new Date());
+        long start = System.nanoTime();
+        try {
+            repository.insert(request);
+        } catch (DuplicateKeyException e) {
+            metrics.mongoCall(HotPathMetrics.MongoOp.INSERT, start);
+            return duplicateOrReclaim(requestId, findExisting(requestId), requestParams, endpoint);
+        }
+        metrics.mongoCall(HotPathMetrics.MongoOp.INSERT, start);
+        metrics.newRequest();
+        return callClaimed(request, requestParams, endpoint);
+    }
+
+    // Takes over an expired claim and makes the call; anything else is a plain duplicate
+    private ApiRequest duplicateOrReclaim(String requestId, ApiRequest existing,
+                                          Map<String, Object> requestParams, String endpoint) throws Exception {
+        if (isExpiredClaim(existing)) {
+            ApiRequest reclaimed = reclaim(requestId, endpoint, requestParams);
+            if (reclaimed != null) {
+                logger.warn("Reclaimed request {} left pending since {}", requestId, claimedAt(existing));
+                metrics.newRequest();
+                return callClaimed(reclaimed, requestParams, endpoint);
+            }
+            // Another caller reclaimed it first
+            existing = findExisting(requestId);
+        }
+        metrics.duplicateRequest();
+        logger.debug("Duplicate request {} detected - skipping", requestId);
+        return existing;
+    }
+
+    private ApiRequest callClaimed(ApiRequest request, Map<String, Object> requestParams, String endpoint) throws Exception {
+        String requestId = request.getRequestId();
+        dedupFilter.record(requestId, request);
+        try {
+            outboundClient.post(endpoint, requestParams);
+
+            request.setStatus("success");
+            statusBatcher.transition(requestId, request.getClaimedAt(), "success");
+            return request;
+        } catch (Exception e) {
+            request.setStatus("failure");
+            statusBatcher.transition(requestId, request.getClaimedAt(), "failure");
+            throw e;
+        } finally {
+            dedupFilter.record(requestId, request);
+        }
+    }
+
+    /**
+     * Moves an expired claim to this caller; null if it was finished or reclaimed meanwhile.
+     * Pending documents written before claimedAt existed are aged by their timestamp.
+     */
+    private ApiRequest reclaim(String requestId, String endpoint, Map<String, Object> requestParams) {
+        Date now = new Date();
+        Date expired = new Date(now.getTime() - claimLeaseMs);
+        Query query = Query.query(Criteria.where("requestId").is(requestId).and("status").is("pending")
+            .orOperator(
+                Criteria.where("claimedAt").lt(expired),
+                Criteria.where("claimedAt").exists(false).and("timestamp").lt(expired)));
+        Update update = new Update()
+            .set("claimedAt", now)
+            .set("endpoint", endpoint)
+            .set("payload", requestParams);
+        long start = System.nanoTime();
+        try {
+            return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), ApiRequest.class);
+        } finally {
+            metrics.mongoCall(HotPathMetrics.MongoOp.SAVE, start);
+        }
+    }
+
+    private boolean isExpiredClaim(ApiRequest request) {
+        if (request == null || !"pending".equals(request.getStatus())) return false;
+        Date claimedAt = claimedAt(request);
+        return claimedAt != null && claimedAt.getTime() < System.currentTimeMillis() - claimLeaseMs;
+    }
+
+    private static Date claimedAt(ApiRequest request) {
+        return request.getClaimedAt() != null ? request.getClaimedAt() : request.getTimestamp();
+    }
+
+    // In lean mode a duplicate comes back with requestId and status only
+    private ApiRequest findExisting(String requestId) {
+        long start = System.nanoTime();
+        try {
+            return leanLookups ? repository.findStatusByRequestId(requestId) : repository.findByRequestId(requestId);
+        } finally {
+            metrics.mongoCall(HotPathMetrics.MongoOp.LOOKUP, start);
+        }
+    }
+
+    private ApiRequest save(ApiRequest request) {
+        long start = System.nanoTime();
+        try {
+            return repository.save(request);
+        } finally {
+            metrics.mongoCall(HotPathMetrics.MongoOp.SAVE, start);
+        }
+    }
 }
@@ -0,0 +1,149 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces the pending -> success/failure transitions of claimed api_requests into
+ * periodic unordered bulk writes, so a thousand requests finishing together cost a few
+ * round trips instead of a thousand. Each update is conditional on the document still
+ * being pending under the same claim, so a replayed or late transition never overwrites
+ * a final status, nor a claim another caller took over after its lease expired.
+ */
+@Component
+public class ApiRequestStatusBatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ApiRequestStatusBatcher.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int maxBatchSize;
+    private final LinkedBlockingQueue<StatusWrite> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "api-request-status-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public ApiRequestStatusBatcher(MongoTemplate mongoTemplate,
+                                   @Value("${api.requests.status-flush-ms:10}") long flushIntervalMs,
+                                   @Value("${api.requests.status-batch-size:500}") int maxBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxBatchSize = maxBatchSize;
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the transition of a request claimed at claimedAt to its final status. The
+     * returned future completes once the batch carrying it has been written.
+     */
+    public CompletableFuture<Void> transition(String requestId, Date claimedAt, String status) {
+        StatusWrite write = new StatusWrite(requestId, claimedAt, status, new CompletableFuture<>());
+        queue.add(write);
+        // A full batch goes out straight away rather than waiting for the next tick
+        if (queue.size() >= maxBatchSize && flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+        return write.done();
+    }
+
+    void flush() {
+        List<StatusWrite> batch = new ArrayList<>(maxBatchSize);
+        while (queue.drainTo(batch, maxBatchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<StatusWrite> batch) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ApiRequest.class);
+        for (StatusWrite write : batch) {
+            ops.updateOne(
+                Query.query(Criteria.where("requestId").is(write.requestId()).and("status").is("pending")
+                    .and("claimedAt").is(write.claimedAt())),
+                Update.update("status", write.status()));
+        }
+        try {
+            ops.execute();
+            batches.increment();
+            written.add(batch.size());
+            batch.forEach(write -> write.done().complete(null));
+        } catch (BulkOperationException e) {
+            // Unordered: everything but the reported writes was still applied
+            batches.increment();
+            Set<Integer> failedIndexes = new HashSet<>();
+            e.getErrors().forEach(error -> failedIndexes.add(error.getIndex()));
+            for (int i = 0; i < batch.size(); i++) {
+                if (failedIndexes.contains(i)) {
+                    batch.get(i).done().completeExceptionally(e);
+                } else {
+                    batch.get(i).done().complete(null);
+                }
+            }
+            written.add(batch.size() - failedIndexes.size());
+            failed.add(failedIndexes.size());
+            logger.error("Failed to write {} of {} api_requests status updates", failedIndexes.size(), batch.size(), e);
+        } catch (RuntimeException e) {
+            // Those documents stay pending, and a retried request finds them as duplicates
+            failed.add(batch.size());
+            logger.error("Failed to write {} api_requests status updates", batch.size(), e);
+            batch.forEach(write -> write.done().completeExceptionally(e));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    private record StatusWrite(String requestId, Date claimedAt, String status, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,68 @@
+@ExtendWith(MockitoExtension.class)
+class ApiRequestStatusBatcherTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Test
+    void shouldCoalesceTransitionsIntoOneUnorderedBulkWrite() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ApiRequest.class)).thenReturn(bulkOperations);
+        ApiRequestStatusBatcher batcher = new ApiRequestStatusBatcher(mongoTemplate, 60_000, 500);
+        CompletableFuture<Void> first = batcher.transition("id-1", new Date(), "success");
+        CompletableFuture<Void> second = batcher.transition("id-2", new Date(), "failure");
+
+        // When
+        batcher.flush();
+
+        // Then
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(1)).execute();
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+        assertThat(batcher.getWrittenCount()).isEqualTo(2);
+        assertThat(batcher.getBatchCount()).isEqualTo(1);
+        batcher.shutdown();
+    }
+
+    @Test
+    void shouldFailQueuedTransitionsWhenBulkWriteFails() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ApiRequest.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("mongo down"));
+        ApiRequestStatusBatcher batcher = new ApiRequestStatusBatcher(mongoTemplate, 60_000, 500);
+        CompletableFuture<Void> transition = batcher.transition("id-1", new Date(), "success");
+
+        // When
+        batcher.flush();
+
+        // Then
+        assertThat(transition).isCompletedExceptionally();
+        assertThat(batcher.getFailedCount()).isEqualTo(1);
+        batcher.shutdown();
+    }
+
+    @Test
+    void shouldOnlyUpdateRequestStillPendingUnderSameClaim() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ApiRequest.class)).thenReturn(bulkOperations);
+        ApiRequestStatusBatcher batcher = new ApiRequestStatusBatcher(mongoTemplate, 60_000, 500);
+        Date claimedAt = new Date();
+        batcher.transition("id-1", claimedAt, "success");
+
+        // When
+        batcher.flush();
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations).updateOne(query.capture(), any(Update.class));
+        assertThat(query.getValue().getQueryObject())
+            .containsEntry("requestId", "id-1")
+            .containsEntry("status", "pending")
+            .containsEntry("claimedAt", claimedAt);
+        batcher.shutdown();
+    }
+}
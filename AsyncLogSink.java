@@ -0,0 +1,169 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands log lines to a single background writer through a bounded buffer, so the caller
+ * pays for an enqueue rather than for formatting and appender I/O. When the buffer is full
+ * the {@link Policy} decides: DROP discards the message and counts it, BLOCK waits for
+ * space (up to blockTimeoutMs, then drops) so nothing is lost under a short burst.
+ *
+ * <p>A message of several lines (see {@link #submitAll}) gets room for all of them at once
+ * or is dropped whole, so a chunked message is never written with parts missing. The
+ * caller's MDC is captured at submit and restored around the write.
+ */
+public class AsyncLogSink implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLogSink.class);
+
+    public enum Policy { DROP, BLOCK }
+
+    public enum Level { INFO, WARN }
+
+    /**
+     * One line of a message; args are formatted by the writer thread.
+     */
+    public record Line(Level level, String format, Object... args) {
+    }
+
+    private record Entry(Logger target, Level level, String format, Object[] args, Map<String, String> mdc) {
+    }
+
+    private static final Entry SHUTDOWN = new Entry(null, Level.INFO, null, null, null);
+
+    // The queue itself is unbounded; space holds one permit per free slot, so a message can
+    // reserve all its slots in one step. Fair, so a long message isn't starved by single lines
+    private final BlockingQueue<Entry> buffer = new LinkedBlockingQueue<>();
+    private final Semaphore space;
+    private final int capacity;
+    private final Policy policy;
+    private final long blockTimeoutMs;
+    private final Thread writer;
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private volatile boolean closed;
+
+    public AsyncLogSink(String name, int capacity, Policy policy, long blockTimeoutMs) {
+        this.space = new Semaphore(capacity, true);
+        this.capacity = capacity;
+        this.policy = policy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.writer = new Thread(this::drain, name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a line for target; args are formatted by the writer thread, so they must not
+     * be mutated afterwards. Returns false if the line was dropped.
+     */
+    public boolean submit(Logger target, Level level, String format, Object... args) {
+        return submitAll(target, List.of(new Line(level, format, args)));
+    }
+
+    /**
+     * Queues lines as one message: BLOCK waits at most blockTimeoutMs for room for all of
+     * them, and a message that doesn't fit is dropped whole and counted as one drop. A
+     * message of more lines than the capacity never fits. Returns false if it was dropped.
+     */
+    public boolean submitAll(Logger target, List<Line> lines) {
+        int count = lines.size();
+        if (closed || count > capacity || !reserve(count)) {
+            droppedCount.increment();
+            return false;
+        }
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        List<Entry> entries = new ArrayList<>(count);
+        for (Line line : lines) {
+            entries.add(new Entry(target, line.level(), line.format(), line.args(), mdc));
+        }
+        buffer.addAll(entries);
+        return true;
+    }
+
+    private boolean reserve(int slots) {
+        if (policy == Policy.DROP) {
+            return space.tryAcquire(slots);
+        }
+        try {
+            return space.tryAcquire(slots, blockTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Entry entry = buffer.take();
+                if (entry == SHUTDOWN) {
+                    return;
+                }
+                space.release();
+                write(entry);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Entry entry) {
+        if (entry.mdc() != null) {
+            MDC.setContextMap(entry.mdc());
+        }
+        try {
+            if (entry.level() == Level.WARN) {
+                entry.target().warn(entry.format(), entry.args());
+            } else {
+                entry.target().info(entry.format(), entry.args());
+            }
+            writtenCount.increment();
+        } catch (RuntimeException e) {
+            // A broken appender must not kill the writer
+            logger.error("Failed to write log line", e);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    public int getBacklog() {
+        return buffer.size();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    /**
+     * Messages dropped, however many lines each had.
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Stops accepting lines and waits up to timeoutMs for the queued ones to be written.
+     */
+    public void close(long timeoutMs) throws InterruptedException {
+        closed = true;
+        buffer.add(SHUTDOWN);
+        writer.join(timeoutMs);
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        close(5000);
+    }
+}
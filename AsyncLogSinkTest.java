@@ -0,0 +1,101 @@
+class AsyncLogSinkTest {
+
+    private final Logger target = mock(Logger.class);
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        MDC.clear();
+    }
+
+    @Test
+    void shouldDropWholeMessageWhenNotAllLinesFit() throws Exception {
+        // Given - the writer is stuck on the first line and one of two slots is taken
+        AsyncLogSink sink = new AsyncLogSink("test-sink", 2, AsyncLogSink.Policy.BLOCK, 50);
+        blockWriterOn("first");
+        sink.submit(target, AsyncLogSink.Level.INFO, "first");
+        assertThat(writing.await(1, TimeUnit.SECONDS)).isTrue();
+        sink.submit(target, AsyncLogSink.Level.INFO, "second");
+
+        // When
+        boolean queued = sink.submitAll(target, List.of(
+            new AsyncLogSink.Line(AsyncLogSink.Level.INFO, "part 1"),
+            new AsyncLogSink.Line(AsyncLogSink.Level.INFO, "part 2")));
+        release.countDown();
+        sink.close();
+
+        // Then - no part of the message was written, and it counts as one drop
+        assertThat(queued).isFalse();
+        assertThat(sink.getDroppedCount()).isEqualTo(1);
+        assertThat(sink.getWrittenCount()).isEqualTo(2);
+        verify(target, never()).info(eq("part 1"), any(Object[].class));
+    }
+
+    @Test
+    void shouldWriteEveryLineOfMessageThatFits() throws Exception {
+        // Given
+        AsyncLogSink sink = new AsyncLogSink("test-sink", 4, AsyncLogSink.Policy.DROP, 0);
+
+        // When
+        boolean queued = sink.submitAll(target, List.of(
+            new AsyncLogSink.Line(AsyncLogSink.Level.INFO, "part {}", 1),
+            new AsyncLogSink.Line(AsyncLogSink.Level.INFO, "part {}", 2),
+            new AsyncLogSink.Line(AsyncLogSink.Level.WARN, "summary")));
+        sink.close();
+
+        // Then
+        assertThat(queued).isTrue();
+        assertThat(sink.getWrittenCount()).isEqualTo(3);
+        InOrder inOrder = inOrder(target);
+        inOrder.verify(target).info("part {}", new Object[]{1});
+        inOrder.verify(target).info("part {}", new Object[]{2});
+        inOrder.verify(target).warn(eq("summary"), any(Object[].class));
+    }
+
+    @Test
+    void shouldDropMessageLongerThanCapacity() throws Exception {
+        // Given
+        AsyncLogSink sink = new AsyncLogSink("test-sink", 1, AsyncLogSink.Policy.BLOCK, 1_000);
+
+        // When
+        boolean queued = sink.submitAll(target, List.of(
+            new AsyncLogSink.Line(AsyncLogSink.Level.INFO, "part 1"),
+            new AsyncLogSink.Line(AsyncLogSink.Level.INFO, "part 2")));
+        sink.close();
+
+        // Then
+        assertThat(queued).isFalse();
+        assertThat(sink.getDroppedCount()).isEqualTo(1);
+        verifyNoInteractions(target);
+    }
+
+    @Test
+    void shouldWriteWithCallersMdc() throws Exception {
+        // Given
+        AtomicReference<String> seen = new AtomicReference<>();
+        doAnswer(invocation -> {
+            seen.set(MDC.get("traceId"));
+            return null;
+        }).when(target).info(eq("traced"), any(Object[].class));
+        AsyncLogSink sink = new AsyncLogSink("test-sink", 4, AsyncLogSink.Policy.DROP, 0);
+
+        // When
+        MDC.put("traceId", "trace-1");
+        sink.submit(target, AsyncLogSink.Level.INFO, "traced");
+        MDC.clear();
+        sink.close();
+
+        // Then
+        assertThat(seen).hasValue("trace-1");
+    }
+
+    private void blockWriterOn(String format) {
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(target).info(eq(format), any(Object[].class));
+    }
+}
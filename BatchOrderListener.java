@@ -0,0 +1,128 @@
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batch alternative to OrderListener, enabled with {@code orders.listener.mode=batch}.
+ * Each poll is split by order key; different keys are processed in parallel while records
+ * of the same key keep their order. Offsets are committed once per batch.
+ */
+@Service
+@ConditionalOnProperty(name = "orders.listener.mode", havingValue = "batch")
+public class BatchOrderListener {
+    private static final Logger logger = LoggerFactory.getLogger(BatchOrderListener.class);
+    private static final Duration REDELIVERY_DELAY = Duration.ofSeconds(1);
+
+    private final OrderService orderService;
+    private final CustomDltRecoverer dltRecoverer;
+    private final HotPathMetrics metrics;
+    private final ExecutorService executor;
+
+    public BatchOrderListener(OrderService orderService,
+                              CustomDltRecoverer dltRecoverer,
+                              HotPathMetrics metrics,
+                              @Value("${orders.batch.parallelism:8}") int parallelism) {
+        this.orderService = orderService;
+        this.dltRecoverer = dltRecoverer;
+        this.metrics = metrics;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism,
+            r -> new Thread(r, "order-batch-" + threadCount.incrementAndGet()));
+    }
+
+    // idIsGroup = false keeps the configured consumer group; the id is for CachePrimer
+    @KafkaListener(id = "orders-batch", idIsGroup = false, topics = "orders-topic",
+        containerFactory = "batchContainerFactory")
+    public void processOrders(List<ConsumerRecord<String, Order>> records, Acknowledgment ack) {
+        // Group record indexes by key, keeping poll order within each key
+        Map<String, List<Integer>> byKey = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            byKey.computeIfAbsent(keyOf(records.get(i)), k -> new ArrayList<>()).add(i);
+        }
+
+        boolean[] completed = new boolean[records.size()];
+        CompletableFuture<?>[] groups = byKey.values().stream()
+            .map(indexes -> CompletableFuture.runAsync(() -> {
+                for (int index : indexes) {
+                    if (!handle(records.get(index))) {
+                        return; // later records of this key must wait for this one
+                    }
+                    completed[index] = true;
+                }
+            }, executor))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(groups).join();
+
+        int firstUnfinished = 0;
+        while (firstUnfinished < completed.length && completed[firstUnfinished]) {
+            firstUnfinished++;
+        }
+        if (firstUnfinished == completed.length) {
+            ack.acknowledge();
+        } else {
+            // Commits everything before the gap and redelivers from it; records after the gap
+            // that already succeeded are processed again (at-least-once)
+            ack.nack(firstUnfinished, REDELIVERY_DELAY);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Processes one record; failures go to the DLT through {@link CustomDltRecoverer}.
+     *
+     * @return false only if the record could neither be processed nor dead-lettered
+     */
+    private boolean handle(ConsumerRecord<String, Order> record) {
+        long start = System.nanoTime();
+        try {
+            orderService.processOrder(record.value());
+            metrics.orderProcessed(start, true);
+            return true;
+        } catch (ValidationException ex) {
+            metrics.orderProcessed(start, false);
+            return recover(record, new CustomDltException("Custom DLT message: " + ex.getMessage(), ex));
+        } catch (Exception ex) {
+            metrics.orderProcessed(start, false);
+            return recover(record, ex);
+        }
+    }
+
+    private boolean recover(ConsumerRecord<String, Order> record, Exception cause) {
+        try {
+            // Same shape as the container's error handler, so CustomDltRecoverer finds the cause;
+            // waits for the DLT send so the batch is only acked once the dead letter is stored
+            dltRecoverer.recoverAsync(record, new ListenerExecutionFailedException("Order processing failed", cause)).join();
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to send order {} at {}-{}@{} to the DLT", keyOf(record),
+                record.topic(), record.partition(), record.offset(), e);
+            return false;
+        }
+    }
+
+    private static String keyOf(ConsumerRecord<String, Order> record) {
+        if (record.key() != null) return record.key();
+        return record.value() != null ? record.value().orderId() : "";
+    }
+}
@@ -0,0 +1,123 @@
+@ExtendWith(MockitoExtension.class)
+class BatchOrderListenerMockTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private CustomDltRecoverer dltRecoverer;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private BatchOrderListener batchOrderListener;
+
+    @BeforeEach
+    void setup() {
+        batchOrderListener = new BatchOrderListener(orderService, dltRecoverer, new HotPathMetrics(), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchOrderListener.shutdown();
+    }
+
+    @Test
+    void shouldProcessWholeBatchAndAckOnce() {
+        // Given
+        List<ConsumerRecord<String, Order>> records = List.of(
+            new ConsumerRecord<>("orders-topic", 0, 0, "1", new Order("1", 100.0)),
+            new ConsumerRecord<>("orders-topic", 0, 1, "2", new Order("2", 200.0)),
+            new ConsumerRecord<>("orders-topic", 0, 2, "1", new Order("1", 150.0)));
+
+        // When
+        batchOrderListener.processOrders(records, ack);
+
+        // Then
+        verify(orderService, times(3)).processOrder(any());
+        verify(ack).acknowledge();
+        verify(ack, never()).nack(anyInt(), any());
+    }
+
+    @Test
+    void shouldKeepOrderWithinKey() {
+        // Given
+        Order first = new Order("1", 100.0);
+        Order second = new Order("1", 150.0);
+        List<ConsumerRecord<String, Order>> records = List.of(
+            new ConsumerRecord<>("orders-topic", 0, 0, "1", first),
+            new ConsumerRecord<>("orders-topic", 0, 1, "1", second));
+
+        // When
+        batchOrderListener.processOrders(records, ack);
+
+        // Then
+        InOrder inOrder = inOrder(orderService);
+        inOrder.verify(orderService).processOrder(first);
+        inOrder.verify(orderService).processOrder(second);
+    }
+
+    @Test
+    void shouldSendInvalidOrderToDltAndStillAckBatch() {
+        // Given
+        Order invalidOrder = new Order("456", -50.0);
+        ConsumerRecord<String, Order> invalid =
+            new ConsumerRecord<>("orders-topic", 0, 0, "456", invalidOrder);
+        ConsumerRecord<String, Order> valid =
+            new ConsumerRecord<>("orders-topic", 0, 1, "123", new Order("123", 100.0));
+        doThrow(new ValidationException("Invalid amount"))
+            .when(orderService).processOrder(invalidOrder);
+        when(dltRecoverer.recoverAsync(eq(invalid), any(Exception.class)))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        batchOrderListener.processOrders(List.of(invalid, valid), ack);
+
+        // Then
+        ArgumentCaptor<Exception> exceptionCaptor = ArgumentCaptor.forClass(Exception.class);
+        verify(dltRecoverer).recoverAsync(eq(invalid), exceptionCaptor.capture());
+        assertThat(exceptionCaptor.getValue().getCause()).isInstanceOf(CustomDltException.class);
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void shouldNackFromFirstRecordThatCouldNotBeDeadLettered() {
+        // Given
+        Order invalidOrder = new Order("456", -50.0);
+        ConsumerRecord<String, Order> valid =
+            new ConsumerRecord<>("orders-topic", 0, 0, "123", new Order("123", 100.0));
+        ConsumerRecord<String, Order> invalid =
+            new ConsumerRecord<>("orders-topic", 0, 1, "456", invalidOrder);
+        doThrow(new ValidationException("Invalid amount"))
+            .when(orderService).processOrder(invalidOrder);
+        when(dltRecoverer.recoverAsync(eq(invalid), any(Exception.class)))
+            .thenReturn(CompletableFuture.failedFuture(new KafkaException("DLT unavailable")));
+
+        // When
+        batchOrderListener.processOrders(List.of(valid, invalid), ack);
+
+        // Then
+        verify(ack).nack(eq(1), any(Duration.class));
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void shouldNackWhenAsyncDltSendFailsAfterAccept() {
+        // Given - accept returned, but the broker rejected the dead letter afterwards
+        Order invalidOrder = new Order("456", -50.0);
+        ConsumerRecord<String, Order> invalid =
+            new ConsumerRecord<>("orders-topic", 0, 0, "456", invalidOrder);
+        doThrow(new ValidationException("Invalid amount"))
+            .when(orderService).processOrder(invalidOrder);
+        CompletableFuture<Void> send = new CompletableFuture<>();
+        when(dltRecoverer.recoverAsync(eq(invalid), any(Exception.class))).thenReturn(send);
+        send.completeExceptionally(new KafkaException("Broker rejected DLT record"));
+
+        // When
+        batchOrderListener.processOrders(List.of(invalid), ack);
+
+        // Then
+        verify(ack).nack(eq(0), any(Duration.class));
+        verify(ack, never()).acknowledge();
+    }
+}
@@ -0,0 +1,50 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for blocking work (Mongo calls, outbound REST) in order processing.
+ * Uses a virtual thread per task on Java 21+, so thousands of blocked calls cost no
+ * platform threads. Callers bound how much they submit; see VirtualThreadOrderListener.
+ */
+@Configuration
+public class BlockingWorkConfig {
+    private static final Logger logger = LoggerFactory.getLogger(BlockingWorkConfig.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService blockingWorkExecutor() {
+        ExecutorService executor = newVirtualThreadExecutor("blocking-work-");
+        if (executor != null) {
+            return executor;
+        }
+        logger.warn("Virtual threads not available on Java {}, using platform threads for blocking work",
+            Runtime.version().feature());
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "blocking-work-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Looked up reflectively so the code still compiles and runs on Java 17
+    private static ExecutorService newVirtualThreadExecutor(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class
+                .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
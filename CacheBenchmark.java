@@ -0,0 +1,144 @@
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Cache} implementations over an in-process Mongo (mongo-java-server, memory backend),
+ * so the numbers include the driver and wire protocol but not a real network or disk:
+ * <ul>
+ *   <li>mongo - MongoDBCache with driver-mapped values</li>
+ *   <li>mongo-compact - MongoDBCache with CompactValueCodec</li>
+ *   <li>near - NearCache in front of mongo</li>
+ *   <li>mapped - MappedFileCache in front of mongo</li>
+ * </ul>
+ * Reads pick keys uniformly from a pre-loaded set, so the local tiers run warm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+    private static final int KEYS = 10_000;
+    private static final int BATCH = 100;
+
+    @Param({"mongo", "mongo-compact", "near", "mapped"})
+    public String implementation;
+
+    private MongoServer server;
+    private MongoClient client;
+    private Path mappedFile;
+    private Cache cache;
+    private String[] keys;
+    private Map<String, Object> value;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        var collection = client.getDatabase("bench").getCollection("cache");
+
+        MongoDBCache mongo = new MongoDBCache(collection);
+        cache = switch (implementation) {
+            case "mongo" -> mongo;
+            case "mongo-compact" -> new MongoDBCache(collection, null, new CompactValueCodec());
+            case "near" -> new NearCache(mongo, KEYS * 2, 60_000);
+            case "mapped" -> {
+                mappedFile = Files.createTempFile("cache-bench", ".mfc");
+                yield new MappedFileCache(mappedFile, 64 * 1024 * 1024, KEYS * 2, new CompactValueCodec(), mongo, 60_000);
+            }
+            default -> throw new IllegalArgumentException("Unknown implementation " + implementation);
+        };
+
+        value = new HashMap<>();
+        value.put("auctionId", "auction-123456");
+        value.put("status", "OPEN");
+        value.put("currentBid", 1523.75);
+        value.put("bidCount", 42);
+        value.put("seller", Map.of("id", "seller-9", "rating", 4.8));
+
+        keys = new String[KEYS];
+        Map<String, Object> preload = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "auction:" + i;
+            preload.put(keys[i], value);
+        }
+        cache.putAll(preload);
+        // Warm the local tiers
+        for (String key : keys) {
+            cache.get(key);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (cache instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+        client.close();
+        server.shutdownNow();
+        if (mappedFile != null) {
+            Files.deleteIfExists(mappedFile);
+        }
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+    }
+
+    @Benchmark
+    public Object get() {
+        return cache.get(randomKey());
+    }
+
+    @Benchmark
+    public void put() {
+        cache.put(randomKey(), value);
+    }
+
+    @Benchmark
+    public Map<String, Object> getAll() {
+        List<String> batch = new ArrayList<>(BATCH);
+        int start = ThreadLocalRandom.current().nextInt(KEYS - BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(keys[start + i]);
+        }
+        return cache.getAll(batch);
+    }
+
+    @Benchmark
+    public void putAll() {
+        Map<String, Object> batch = new HashMap<>(BATCH * 2);
+        int start = ThreadLocalRandom.current().nextInt(KEYS - BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.put(keys[start + i], value);
+        }
+        cache.putAll(batch);
+    }
+}
@@ -0,0 +1,250 @@
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a node's {@link LocalCacheTier} consistent with puts and deletes made by other nodes.
+ * Tails the {@link MongoDBCache} collection with a change stream and evicts changed keys
+ * locally. The resume token is stored per node, so a restarted node picks up where it left
+ * off. Standalone mongod has no change streams; there we poll on {@code updatedAt} instead.
+ * Writes this node made itself are skipped, provided its {@link MongoDBCache} stamps them
+ * with the same node id; the local tier already holds those values.
+ */
+public class CacheInvalidationListener implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+    private static final int CHANGE_STREAM_NOT_SUPPORTED = 40573; // not a replica set
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;    // resume token fell off the oplog
+    private static final long TOKEN_SAVE_INTERVAL_MS = 1000;
+    private static final long CLOCK_SKEW_MS = 2000;               // re-read window for polling
+    private static final long KEY_SWEEP_INTERVAL_MS = 60_000;     // polling: how often local keys are checked for deletes
+    private static final int KEY_CHECK_BATCH = 500;
+
+    private final MongoCollection<Document> cacheCollection;
+    private final MongoCollection<Document> stateCollection;
+    private final LocalCacheTier localTier;
+    private final String nodeId;
+    private final long pollIntervalMs;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * @param cacheCollection collection backing the {@link MongoDBCache}
+     * @param stateCollection where each node keeps its resume token / polling watermark
+     * @param localTier       local tier to evict from, e.g. {@link NearCache}
+     * @param nodeId          stable id of this node, survives restarts; the node's
+     *                        {@link MongoDBCache} must be given the same id
+     * @param pollIntervalMs  poll period when change streams are unavailable
+     */
+    public CacheInvalidationListener(MongoCollection<Document> cacheCollection,
+                                     MongoCollection<Document> stateCollection,
+                                     LocalCacheTier localTier,
+                                     String nodeId,
+                                     long pollIntervalMs) {
+        this.cacheCollection = cacheCollection;
+        this.stateCollection = stateCollection;
+        this.localTier = localTier;
+        this.nodeId = nodeId;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        worker = new Thread(this, "cache-invalidation-" + nodeId);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        boolean polling = false;
+        while (running) {
+            try {
+                if (polling) {
+                    poll();
+                } else {
+                    tailChangeStream();
+                }
+            } catch (MongoCommandException e) {
+                if (!polling && e.getErrorCode() == CHANGE_STREAM_NOT_SUPPORTED) {
+                    logger.info("Change streams not supported, polling cache collection every {} ms", pollIntervalMs);
+                    polling = true;
+                    continue;
+                }
+                if (!polling && e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // We can't tell what changed while we were away, so start clean
+                    logger.warn("Resume token expired, dropping local cache entries");
+                    localTier.invalidateAll();
+                    saveState(new Document("resumeToken", null));
+                    continue;
+                }
+                retryAfterFailure(polling, e);
+            } catch (Exception e) {
+                retryAfterFailure(polling, e);
+            }
+        }
+    }
+
+    // Any failure, in either mode, is retried; the thread only ends on stop()
+    private void retryAfterFailure(boolean polling, Exception e) {
+        if (!running) return;
+        logger.warn("{} failed, retrying in {} ms: {}", polling ? "Polling" : "Change stream", pollIntervalMs, e.getMessage());
+        pause(pollIntervalMs);
+    }
+
+    private void tailChangeStream() {
+        BsonDocument resumeToken = loadResumeToken();
+        // Only the key and the writer are needed, not the cached value
+        List<Bson> pipeline = List.of(Aggregates.project(
+            Projections.include("operationType", "documentKey", "fullDocument.writtenBy")));
+        ChangeStreamIterable<Document> stream = cacheCollection.watch(pipeline);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+
+        long lastSave = System.currentTimeMillis();
+        boolean unsaved = false;
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    unsaved = true;
+                    if (change.getDocumentKey() != null && !isOwnWrite(change.getFullDocument())) {
+                        BsonValue id = change.getDocumentKey().get("_id");
+                        if (id != null && id.isString()) {
+                            localTier.invalidate(id.asString().getValue());
+                        }
+                    }
+                }
+
+                // Batch token writes; replaying up to a second of evictions after a crash is harmless.
+                // An idle cursor's token keeps moving too, but there is nothing to replay then
+                long now = System.currentTimeMillis();
+                BsonDocument token = cursor.getResumeToken();
+                if (unsaved && token != null && now - lastSave >= TOKEN_SAVE_INTERVAL_MS) {
+                    saveState(new Document("resumeToken", token));
+                    lastSave = now;
+                    unsaved = false;
+                }
+            }
+        }
+    }
+
+    // Deletes carry no document, so they can't be told apart; evicting a key we deleted is a no-op
+    private boolean isOwnWrite(Document fullDocument) {
+        return fullDocument != null && nodeId.equals(fullDocument.getString("writtenBy"));
+    }
+
+    private void poll() {
+        cacheCollection.createIndex(Indexes.ascending("updatedAt"));
+        long watermark = loadWatermark();
+        long lastSweep = System.currentTimeMillis();
+        // Versions already evicted inside the clock skew window, which every poll reads again
+        Map<String, Long> evicted = new HashMap<>();
+
+        while (running) {
+            // Puts by other nodes since the last poll, minus a window for clock skew between nodes
+            long newWatermark = watermark;
+            Bson changed = Filters.and(
+                Filters.gt("updatedAt", watermark - CLOCK_SKEW_MS),
+                Filters.ne("writtenBy", nodeId));
+            for (Document doc : cacheCollection.find(changed)
+                    .projection(Projections.include("_id", "updatedAt"))) {
+                String key = doc.getString("_id");
+                long updatedAt = doc.getLong("updatedAt");
+                Long previous = evicted.put(key, updatedAt);
+                if (previous == null || previous != updatedAt) {
+                    localTier.invalidate(key);
+                }
+                newWatermark = Math.max(newWatermark, updatedAt);
+            }
+            long horizon = newWatermark - CLOCK_SKEW_MS;
+            evicted.values().removeIf(updatedAt -> updatedAt <= horizon);
+
+            // Deletes leave nothing to poll for; checking the local keys is a query per batch,
+            // so it runs on a much longer period and a remote delete can be served until then
+            long now = System.currentTimeMillis();
+            if (now - lastSweep >= KEY_SWEEP_INTERVAL_MS) {
+                evictDeletedKeys();
+                lastSweep = now;
+            }
+
+            if (newWatermark != watermark) {
+                watermark = newWatermark;
+                saveState(new Document("watermark", watermark));
+            }
+            pause(pollIntervalMs);
+        }
+    }
+
+    private void evictDeletedKeys() {
+        List<String> localKeys = localTier.keys();
+        for (int i = 0; i < localKeys.size(); i += KEY_CHECK_BATCH) {
+            List<String> batch = localKeys.subList(i, Math.min(i + KEY_CHECK_BATCH, localKeys.size()));
+            Set<String> present = new HashSet<>();
+            for (Document doc : cacheCollection.find(Filters.in("_id", batch))
+                    .projection(Projections.include("_id"))) {
+                present.add(doc.getString("_id"));
+            }
+            for (String key : batch) {
+                if (!present.contains(key)) localTier.invalidate(key);
+            }
+        }
+    }
+
+    private BsonDocument loadResumeToken() {
+        Document state = stateCollection.find(Filters.eq("_id", nodeId)).first();
+        if (state == null || state.get("resumeToken") == null) return null;
+        return state.get("resumeToken", Document.class).toBsonDocument();
+    }
+
+    private long loadWatermark() {
+        Document state = stateCollection.find(Filters.eq("_id", nodeId)).first();
+        if (state == null || state.getLong("watermark") == null) return System.currentTimeMillis();
+        return state.getLong("watermark");
+    }
+
+    private void saveState(Document fields) {
+        Document state = new Document("_id", nodeId).append("updatedAt", System.currentTimeMillis());
+        state.putAll(fields);
+        stateCollection.replaceOne(Filters.eq("_id", nodeId), state, new ReplaceOptions().upsert(true));
+    }
+
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Warms the {@link Cache} from every {@link CachePrimingSource} bean before the service
+ * takes traffic. Sources are streamed in parallel through a cursor fetching pageSize
+ * documents per round trip, and each page goes to the cache in one putAll, run on the
+ * executor so the next page is read meanwhile, instead of a round trip per key.
+ *
+ * <p>The cache primed is the bean named by cache.priming.target, otherwise the only (or
+ * the {@code @Primary}) Cache bean; several candidates without either fail startup. The
+ * cache must be able to store the sources' values; see {@link CachePrimingSource}.
+ *
+ * <p>Runs as an ApplicationRunner, and Spring Boot only reports readiness (ACCEPTING_TRAFFIC)
+ * once the runners have finished, so the instance stays out of rotation while priming. The
+ * "cachePriming" health check is DOWN until then and shows progress per source. Kafka
+ * listener containers would start with the context, before any runner, so they are set
+ * not to auto-start (spring.kafka.listener.auto-startup=false) and this starts the ones
+ * listed in cache.priming.start-listeners once priming is over, with the retry topic
+ * containers derived from them. Containers not listed, e.g. ones meant to be started by
+ * hand, are left alone. A source that fails or a run
+ * past timeoutMs is logged and the service starts with what was loaded, unless
+ * fail-on-error is set.
+ */
+@Component
+public class CachePrimer implements ApplicationRunner, HealthContributor {
+    private static final Logger logger = LoggerFactory.getLogger(CachePrimer.class);
+    private static final long PROGRESS_INTERVAL_MS = 5_000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectProvider<Cache> cache;
+    private final BeanFactory beanFactory;
+    private final ObjectProvider<KafkaListenerEndpointRegistry> listeners;
+    private final List<CachePrimingSource<?>> sources;
+    private final ExecutorService executor;
+    private final boolean enabled;
+    private final int pageSize;
+    private final long ttlMs;
+    private final long timeoutMs;
+    private final boolean failOnError;
+    private final String targetName;
+    private final List<String> listenerIds;
+
+    private final Map<String, SourceProgress> progress = new LinkedHashMap<>();
+    private volatile boolean done;
+    private volatile boolean cancelled;
+
+    public CachePrimer(MongoTemplate mongoTemplate,
+                       ObjectProvider<Cache> cache,
+                       BeanFactory beanFactory,
+                       ObjectProvider<KafkaListenerEndpointRegistry> listeners,
+                       ObjectProvider<CachePrimingSource<?>> sources,
+                       @Qualifier("blockingWorkExecutor") ExecutorService executor,
+                       @Value("${cache.priming.enabled:true}") boolean enabled,
+                       @Value("${cache.priming.page-size:100}") int pageSize,
+                       @Value("${cache.priming.ttl-ms:0}") long ttlMs,
+                       @Value("${cache.priming.timeout-ms:300000}") long timeoutMs,
+                       @Value("${cache.priming.fail-on-error:false}") boolean failOnError,
+                       @Value("${cache.priming.target:}") String targetName,
+                       @Value("${cache.priming.start-listeners:orders,orders-batch,orders-virtual}") List<String> listenerIds) {
+        this.mongoTemplate = mongoTemplate;
+        this.cache = cache;
+        this.beanFactory = beanFactory;
+        this.listeners = listeners;
+        this.sources = sources.orderedStream().toList();
+        this.executor = executor;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.ttlMs = ttlMs;
+        this.timeoutMs = timeoutMs;
+        this.failOnError = failOnError;
+        this.targetName = targetName;
+        this.listenerIds = listenerIds;
+        for (CachePrimingSource<?> source : this.sources) {
+            progress.put(source.name(), new SourceProgress());
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Cache target = enabled && !sources.isEmpty() ? resolveTarget() : null;
+        if (target == null) {
+            logger.info("Cache priming skipped (enabled={}, cache={}, sources={})",
+                enabled, target != null, sources.size());
+            done = true;
+        } else {
+            prime(target);
+        }
+        startListeners();
+    }
+
+    Cache resolveTarget() {
+        if (!targetName.isEmpty()) {
+            return beanFactory.getBean(targetName, Cache.class);
+        }
+        try {
+            return cache.getIfAvailable();
+        } catch (NoUniqueBeanDefinitionException e) {
+            throw new IllegalStateException("Several Cache beans and none is @Primary; "
+                + "set cache.priming.target to the bean name of the one to prime", e);
+        }
+    }
+
+    // Not reached when priming fails startup, so the listeners never consume from a cold cache
+    void startListeners() {
+        KafkaListenerEndpointRegistry registry = listeners.getIfAvailable();
+        if (registry == null) return;
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            if (!container.isRunning() && heldForPriming(container.getListenerId())) {
+                logger.info("Starting listener {} after cache priming", container.getListenerId());
+                container.start();
+            }
+        }
+    }
+
+    // Retry topic containers are named after their listener plus the topic suffix (".retry-1000", ".DLT")
+    private boolean heldForPriming(String listenerId) {
+        if (listenerId == null) return false;
+        for (String id : listenerIds) {
+            if (listenerId.equals(id) || listenerId.startsWith(id + ".")) return true;
+        }
+        return false;
+    }
+
+    void prime(Cache target) throws Exception {
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (CachePrimingSource<?> source : sources) {
+            running.add(CompletableFuture.runAsync(() -> load(source, target), executor));
+        }
+
+        try {
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Failures are already logged by load; after a timeout, stop the sources still running
+            cancelled = true;
+            if (e instanceof TimeoutException) {
+                logger.warn("Cache priming did not finish within {} ms", timeoutMs);
+            }
+            if (failOnError) {
+                throw new IllegalStateException("Cache priming failed", e instanceof ExecutionException ? e.getCause() : e);
+            }
+        } finally {
+            long total = progress.values().stream().mapToLong(p -> p.records.get()).sum();
+            long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            logger.info("Cache priming finished: {} records from {} sources in {} ms ({} records/s)",
+                total, sources.size(), elapsedMs, total * 1000 / elapsedMs);
+            done = true;
+        }
+    }
+
+    private <T> void load(CachePrimingSource<T> source, Cache target) {
+        SourceProgress sourceProgress = progress.get(source.name());
+        long start = System.nanoTime();
+        long lastReport = start;
+        Query query = Query.of(source.query()).cursorBatchSize(pageSize);
+        Map<String, Object> page = new HashMap<>(pageSize * 2);
+        CompletableFuture<Void> previousPut = CompletableFuture.completedFuture(null);
+
+        try (Stream<T> documents = mongoTemplate.stream(query, source.type(), source.collection())) {
+            for (T document : (Iterable<T>) documents::iterator) {
+                if (cancelled) {
+                    sourceProgress.state = "cancelled";
+                    return;
+                }
+                page.put(source.keyOf().apply(document), document);
+                if (page.size() < pageSize) continue;
+
+                // One page in flight: wait for the last put before handing over the next
+                previousPut.join();
+                previousPut = putAsync(target, page);
+                sourceProgress.records.addAndGet(page.size());
+                page = new HashMap<>(pageSize * 2);
+
+                long now = System.nanoTime();
+                if (now - lastReport >= TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MS)) {
+                    lastReport = now;
+                    logger.info("Cache priming {}: {} records ({} records/s)",
+                        source.name(), sourceProgress.records.get(), rate(sourceProgress.records.get(), start, now));
+                }
+            }
+            if (!page.isEmpty()) {
+                previousPut.join();
+                previousPut = putAsync(target, page);
+                sourceProgress.records.addAndGet(page.size());
+            }
+            previousPut.join();
+            sourceProgress.state = "done";
+            long now = System.nanoTime();
+            logger.info("Cache priming {} done: {} records in {} ms ({} records/s)", source.name(),
+                sourceProgress.records.get(), TimeUnit.NANOSECONDS.toMillis(now - start),
+                rate(sourceProgress.records.get(), start, now));
+        } catch (RuntimeException e) {
+            sourceProgress.state = "failed: " + e.getMessage();
+            logger.error("Cache priming {} failed after {} records", source.name(), sourceProgress.records.get(), e);
+            throw e;
+        }
+    }
+
+    // Caches without a real putAllAsync run it inline, so it is started from the executor
+    // either way to keep the cursor reading while the page is written
+    private CompletableFuture<Void> putAsync(Cache target, Map<String, Object> page) {
+        return CompletableFuture.supplyAsync(() -> target.putAllAsync(page, ttl()), executor)
+            .thenCompose(put -> put);
+    }
+
+    // Cache.putAll treats Long.MAX_VALUE as no expiry
+    private long ttl() {
+        return ttlMs > 0 ? ttlMs : Long.MAX_VALUE;
+    }
+
+    private static long rate(long records, long startNanos, long nowNanos) {
+        return records * 1_000_000_000L / Math.max(1, nowNanos - startNanos);
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public String name() {
+        return "cachePriming";
+    }
+
+    @Override
+    public Map<String, Object> check() {
+        Map<String, Object> details = new HashMap<>();
+        details.put("status", done ? "UP" : "DOWN");
+        Map<String, Object> perSource = new LinkedHashMap<>();
+        progress.forEach((name, p) -> perSource.put(name, Map.of("records", p.records.get(), "state", p.state)));
+        details.put("sources", perSource);
+        return details;
+    }
+
+    private static final class SourceProgress {
+        final AtomicLong records = new AtomicLong();
+        volatile String state = "loading";
+    }
+}
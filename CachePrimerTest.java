@@ -0,0 +1,207 @@
+@ExtendWith(MockitoExtension.class)
+class CachePrimerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ObjectProvider<Cache> cacheProvider;
+
+    @Mock
+    private ObjectProvider<CachePrimingSource<?>> sourceProvider;
+
+    @Mock
+    private BeanFactory beanFactory;
+
+    @Mock
+    private ObjectProvider<KafkaListenerEndpointRegistry> registryProvider;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final MapCache cache = new MapCache();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldLoadSourceIntoCacheOnePageAtATime() throws Exception {
+        // Given
+        when(sourceProvider.orderedStream()).thenReturn(Stream.of(source("auctions")));
+        when(mongoTemplate.stream(any(Query.class), eq(String.class), eq("auctions")))
+            .thenReturn(IntStream.range(0, 250).mapToObj(i -> "auction-" + i));
+        CachePrimer primer = primer(false);
+
+        // When
+        primer.prime(cache);
+
+        // Then
+        assertThat(cache.entries).hasSize(250).containsKey("auctions:auction-249");
+        assertThat(cache.putAllCalls).hasValue(3);
+        assertThat(primer.isDone()).isTrue();
+        assertThat(primer.check()).containsEntry("status", "UP");
+    }
+
+    @Test
+    void shouldRequestCursorBatchesOfPageSize() throws Exception {
+        // Given
+        when(sourceProvider.orderedStream()).thenReturn(Stream.of(source("auctions")));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.stream(query.capture(), eq(String.class), eq("auctions"))).thenReturn(Stream.empty());
+
+        // When
+        primer(false).prime(cache);
+
+        // Then
+        assertThat(query.getValue().getMeta().getCursorBatchSize()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldReportDownUntilPrimingCompletes() {
+        // Given
+        when(sourceProvider.orderedStream()).thenReturn(Stream.of(source("auctions")));
+
+        // When
+        CachePrimer primer = primer(false);
+
+        // Then
+        assertThat(primer.isDone()).isFalse();
+        assertThat(primer.check()).containsEntry("status", "DOWN");
+    }
+
+    @Test
+    void shouldFinishWithOtherSourcesWhenOneFails() throws Exception {
+        // Given
+        when(sourceProvider.orderedStream()).thenReturn(Stream.of(source("auctions"), source("bids")));
+        when(mongoTemplate.stream(any(Query.class), eq(String.class), eq("auctions")))
+            .thenReturn(Stream.of("a-1", "a-2"));
+        when(mongoTemplate.stream(any(Query.class), eq(String.class), eq("bids")))
+            .thenThrow(new DataAccessResourceFailureException("mongo down"));
+        CachePrimer primer = primer(false);
+
+        // When
+        primer.prime(cache);
+
+        // Then
+        assertThat(cache.entries).containsOnlyKeys("auctions:a-1", "auctions:a-2");
+        assertThat(primer.isDone()).isTrue();
+        assertThat(primer.check().get("sources").toString()).contains("failed: mongo down");
+    }
+
+    @Test
+    void shouldFailStartupWhenConfiguredAndSourceFails() {
+        // Given
+        when(sourceProvider.orderedStream()).thenReturn(Stream.of(source("bids")));
+        when(mongoTemplate.stream(any(Query.class), eq(String.class), eq("bids")))
+            .thenThrow(new DataAccessResourceFailureException("mongo down"));
+        CachePrimer primer = primer(true);
+
+        // When / Then
+        assertThatThrownBy(() -> primer.prime(cache))
+            .isInstanceOf(IllegalStateException.class)
+            .hasRootCauseMessage("mongo down");
+    }
+
+    @Test
+    void shouldPrimeNamedCacheWhenTargetIsSet() {
+        // Given
+        when(sourceProvider.orderedStream()).thenReturn(Stream.of(source("auctions")));
+        when(beanFactory.getBean("auctionCache", Cache.class)).thenReturn(cache);
+
+        // When
+        Cache target = primer(false, "auctionCache").resolveTarget();
+
+        // Then
+        assertThat(target).isSameAs(cache);
+        verifyNoInteractions(cacheProvider);
+    }
+
+    @Test
+    void shouldFailWhenSeveralCachesAndNoTarget() {
+        // Given
+        when(sourceProvider.orderedStream()).thenReturn(Stream.of(source("auctions")));
+        when(cacheProvider.getIfAvailable()).thenThrow(new NoUniqueBeanDefinitionException(Cache.class, "nearCache", "mongoCache"));
+        CachePrimer primer = primer(false);
+
+        // When / Then
+        assertThatThrownBy(() -> primer.run(null))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("cache.priming.target");
+    }
+
+    @Test
+    void shouldStartListenersOnlyAfterPriming() throws Exception {
+        // Given
+        when(sourceProvider.orderedStream()).thenReturn(Stream.of(source("auctions")));
+        when(cacheProvider.getIfAvailable()).thenReturn(cache);
+        when(mongoTemplate.stream(any(Query.class), eq(String.class), eq("auctions"))).thenReturn(Stream.of("a-1"));
+        KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        MessageListenerContainer retry = mock(MessageListenerContainer.class);
+        MessageListenerContainer manual = mock(MessageListenerContainer.class);
+        when(container.getListenerId()).thenReturn("orders");
+        when(retry.getListenerId()).thenReturn("orders.retry-1000");
+        when(manual.getListenerId()).thenReturn("orders-replay");
+        when(registryProvider.getIfAvailable()).thenReturn(registry);
+        when(registry.getListenerContainers()).thenReturn(List.of(container, retry, manual));
+        CachePrimer primer = primer(false);
+        AtomicBoolean primedWhenStarted = new AtomicBoolean();
+        doAnswer(invocation -> {
+            primedWhenStarted.set(primer.isDone() && cache.entries.containsKey("auctions:a-1"));
+            return null;
+        }).when(container).start();
+
+        // When
+        primer.run(null);
+
+        // Then - a container held back for another reason stays stopped
+        verify(container).start();
+        verify(retry).start();
+        verify(manual, never()).start();
+        assertThat(primedWhenStarted).isTrue();
+    }
+
+    private CachePrimer primer(boolean failOnError) {
+        return primer(failOnError, "");
+    }
+
+    private CachePrimer primer(boolean failOnError, String target) {
+        return new CachePrimer(mongoTemplate, cacheProvider, beanFactory, registryProvider, sourceProvider, executor,
+            true, 100, 0, 10_000, failOnError, target, List.of("orders"));
+    }
+
+    private static CachePrimingSource<String> source(String name) {
+        return new CachePrimingSource<>(name, String.class, name, new Query(), value -> name + ":" + value);
+    }
+
+    static class MapCache implements Cache {
+        final Map<String, Object> entries = new ConcurrentHashMap<>();
+        final AtomicInteger putAllCalls = new AtomicInteger();
+
+        @Override
+        public Object get(String key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public void put(String key, Object value) {
+            entries.put(key, value);
+        }
+
+        @Override
+        public void put(String key, Object value, long ttl) {
+            entries.put(key, value);
+        }
+
+        @Override
+        public void delete(String key) {
+            entries.remove(key);
+        }
+
+        @Override
+        public void putAll(Map<String, ?> batch, long ttl) {
+            putAllCalls.incrementAndGet();
+            entries.putAll(batch);
+        }
+    }
+}
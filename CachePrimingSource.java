@@ -0,0 +1,23 @@
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.function.Function;
+
+/**
+ * A collection {@link CachePrimer} loads into the cache at startup: the documents matching
+ * query, mapped to type, cached under keyOf(document). Declare one bean per source, e.g.
+ * <pre>
+ * &#64;Bean
+ * CachePrimingSource&lt;Document&gt; openAuctions() {
+ *     return new CachePrimingSource&lt;&gt;("auctions", Document.class, "auctions",
+ *         Query.query(Criteria.where("status").is("OPEN")), auction -&gt; "auction:" + auction.get("_id"));
+ * }
+ * </pre>
+ * The values go into the cache as they are, so type must be one the cache can store. A
+ * {@link MongoDBCache} without a codec hands them to the driver, which only encodes BSON
+ * types: use {@code Document} (or String) there. Mapped entity classes need a cache with a
+ * {@link ValueCodec} that accepts them, e.g. {@link CompactValueCodec} with the type
+ * registered.
+ */
+public record CachePrimingSource<T>(String name, Class<T> type, String collection, Query query,
+                                    Function<? super T, String> keyOf) {
+}
@@ -0,0 +1,339 @@
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * SHA-256 request ids without building the JSON string. Params are written as JSON straight
+ * into a digest through a small buffer, and hex-encoded from a table. Digest and buffer are
+ * borrowed from a small shared pool rather than kept per thread, so virtual threads, which
+ * each run a single request, reuse them as well; when every one is in use a call allocates
+ * its own.
+ *
+ * <p>{@link Mode#COMPAT} hashes exactly the bytes the old generateRequestId hashed
+ * (top-level keys sorted, nested maps in iteration order, Jackson's escaping), so existing
+ * records still deduplicate. {@link Mode#CANONICAL} also sorts nested map keys and set
+ * elements, so equal params always give the same id however their maps were built.
+ * Values we don't write ourselves (dates, POJOs, arrays, NaN...) are serialized by Jackson
+ * into the same digest.
+ */
+public class CanonicalRequestHasher {
+
+    public enum Mode { COMPAT, CANONICAL }
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    // Jackson writes \\u escapes with upper-case digits
+    private static final byte[] ESCAPE_HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    private final ObjectMapper objectMapper;
+    private final Mode mode;
+    // Idle sinks; a slot is claimed by swapping it to null
+    private final AtomicReferenceArray<Sink> pool;
+
+    public CanonicalRequestHasher(ObjectMapper objectMapper, Mode mode) {
+        this(objectMapper, mode, Math.max(16, 2 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param poolSize idle sinks kept for reuse; 0 allocates one per call
+     */
+    CanonicalRequestHasher(ObjectMapper objectMapper, Mode mode, int poolSize) {
+        this.objectMapper = objectMapper;
+        this.mode = mode;
+        this.pool = new AtomicReferenceArray<>(poolSize);
+    }
+
+    public String hash(Map<String, Object> params) throws JsonProcessingException {
+        Sink sink = borrow();
+        try {
+            writeSortedMap(sink, params);
+            return sink.finishHex();
+        } finally {
+            release(sink);
+        }
+    }
+
+    private Sink borrow() {
+        int size = pool.length();
+        // Start at a slot picked by the thread, so concurrent callers mostly try different ones
+        int start = size == 0 ? 0 : (int) (Thread.currentThread().threadId() % size);
+        for (int i = 0; i < size; i++) {
+            int slot = (start + i) % size;
+            Sink sink = pool.get(slot);
+            if (sink != null && pool.compareAndSet(slot, sink, null)) {
+                return sink;
+            }
+        }
+        return new Sink();
+    }
+
+    // Reset here as well, so a call that failed halfway leaves nothing in the digest
+    private void release(Sink sink) {
+        sink.reset();
+        int size = pool.length();
+        int start = size == 0 ? 0 : (int) (Thread.currentThread().threadId() % size);
+        for (int i = 0; i < size; i++) {
+            if (pool.compareAndSet((start + i) % size, null, sink)) {
+                return;
+            }
+        }
+    }
+
+    private void writeSortedMap(Sink sink, Map<?, ?> map) throws JsonProcessingException {
+        Object[] keys = map.keySet().toArray();
+        for (Object key : keys) {
+            if (!(key instanceof String)) {
+                // Null or non-String keys: let Jackson decide (usually an error, as before)
+                writeWithJackson(sink, map);
+                return;
+            }
+        }
+        Arrays.sort(keys);
+        sink.write('{');
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) sink.write(',');
+            writeString(sink, (String) keys[i]);
+            sink.write(':');
+            writeValue(sink, map.get(keys[i]));
+        }
+        sink.write('}');
+    }
+
+    private void writeValue(Sink sink, Object value) throws JsonProcessingException {
+        if (value == null) {
+            sink.write(NULL);
+        } else if (value instanceof String s) {
+            writeString(sink, s);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            sink.writeLong(((Number) value).longValue());
+        } else if (value instanceof Boolean b) {
+            sink.write(b ? TRUE : FALSE);
+        } else if (value instanceof Double d && Double.isFinite(d)) {
+            sink.writeAscii(Double.toString(d));
+        } else if (value instanceof Float f && Float.isFinite(f)) {
+            sink.writeAscii(Float.toString(f));
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            sink.writeAscii(value.toString());
+        } else if (value instanceof Map<?, ?> map) {
+            if (mode == Mode.CANONICAL) {
+                writeSortedMap(sink, map);
+            } else {
+                writeMap(sink, map);
+            }
+        } else if (value instanceof Set<?> set && mode == Mode.CANONICAL) {
+            writeSortedSet(sink, set);
+        } else if (value instanceof Collection<?> collection) {
+            sink.write('[');
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) sink.write(',');
+                first = false;
+                writeValue(sink, element);
+            }
+            sink.write(']');
+        } else {
+            writeWithJackson(sink, value);
+        }
+    }
+
+    // Iteration order, as Jackson writes nested maps by default
+    private void writeMap(Sink sink, Map<?, ?> map) throws JsonProcessingException {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                writeWithJackson(sink, map);
+                return;
+            }
+        }
+        sink.write('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) sink.write(',');
+            first = false;
+            writeString(sink, (String) entry.getKey());
+            sink.write(':');
+            writeValue(sink, entry.getValue());
+        }
+        sink.write('}');
+    }
+
+    // Set order isn't meaningful, so elements are ordered by their own encoding
+    private void writeSortedSet(Sink sink, Set<?> set) throws JsonProcessingException {
+        List<byte[]> encoded = new ArrayList<>(set.size());
+        for (Object element : set) {
+            Sink elementSink = new Sink(null);
+            writeValue(elementSink, element);
+            encoded.add(elementSink.toByteArray());
+        }
+        encoded.sort(Arrays::compareUnsigned);
+        sink.write('[');
+        for (int i = 0; i < encoded.size(); i++) {
+            if (i > 0) sink.write(',');
+            sink.write(encoded.get(i));
+        }
+        sink.write(']');
+    }
+
+    private void writeWithJackson(Sink sink, Object value) throws JsonProcessingException {
+        sink.write(objectMapper.writeValueAsBytes(value));
+    }
+
+    // UTF-8 with Jackson's default escaping
+    private static void writeString(Sink sink, String s) {
+        sink.write('"');
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    sink.write('\\');
+                    sink.write(c);
+                } else if (c >= 0x20) {
+                    sink.write(c);
+                } else {
+                    writeControl(sink, c);
+                }
+            } else if (c < 0x800) {
+                sink.write(0xC0 | (c >> 6));
+                sink.write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                sink.write(0xF0 | (cp >> 18));
+                sink.write(0x80 | ((cp >> 12) & 0x3F));
+                sink.write(0x80 | ((cp >> 6) & 0x3F));
+                sink.write(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate: String.getBytes(UTF_8) writes '?'
+                sink.write('?');
+            } else {
+                sink.write(0xE0 | (c >> 12));
+                sink.write(0x80 | ((c >> 6) & 0x3F));
+                sink.write(0x80 | (c & 0x3F));
+            }
+        }
+        sink.write('"');
+    }
+
+    private static void writeControl(Sink sink, char c) {
+        sink.write('\\');
+        switch (c) {
+            case '\b' -> sink.write('b');
+            case '\t' -> sink.write('t');
+            case '\n' -> sink.write('n');
+            case '\f' -> sink.write('f');
+            case '\r' -> sink.write('r');
+            default -> {
+                sink.write('u');
+                sink.write('0');
+                sink.write('0');
+                sink.write(ESCAPE_HEX[c >> 4]);
+                sink.write(ESCAPE_HEX[c & 0xF]);
+            }
+        }
+    }
+
+    /**
+     * Buffers bytes and feeds them to the digest in chunks. A sink without a digest just
+     * collects bytes (used to sort set elements).
+     */
+    private static final class Sink {
+        private final MessageDigest digest;
+        private byte[] buffer = new byte[4096];
+        private int position;
+        private final byte[] hash = new byte[32];
+        private final byte[] hex = new byte[64];
+
+        Sink() {
+            this(sha256());
+        }
+
+        Sink(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        void write(int b) {
+            if (position == buffer.length) drain();
+            buffer[position++] = (byte) b;
+        }
+
+        void write(byte[] bytes) {
+            for (byte b : bytes) write(b);
+        }
+
+        // Only used for number text, which is always ASCII
+        void writeAscii(String s) {
+            for (int i = 0; i < s.length(); i++) write(s.charAt(i));
+        }
+
+        void writeLong(long value) {
+            if (value == Long.MIN_VALUE) {
+                writeAscii(Long.toString(value));
+                return;
+            }
+            if (value < 0) {
+                write('-');
+                value = -value;
+            }
+            long divisor = 1;
+            while (value / divisor >= 10) divisor *= 10;
+            for (; divisor > 0; divisor /= 10) {
+                write('0' + (int) (value / divisor % 10));
+            }
+        }
+
+        private void drain() {
+            if (digest == null) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                digest.update(buffer, 0, position);
+                position = 0;
+            }
+        }
+
+        String finishHex() {
+            digest.update(buffer, 0, position);
+            position = 0;
+            try {
+                digest.digest(hash, 0, hash.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            for (int i = 0; i < hash.length; i++) {
+                hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+            }
+            return new String(hex, StandardCharsets.US_ASCII);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        void reset() {
+            position = 0;
+            if (digest != null) digest.reset();
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+class CanonicalRequestHasherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void compatModeShouldMatchPreviousRequestIds() throws Exception {
+        // Given
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("zeta", List.of(1, 2.5, "three", Map.of("k", true)));
+        nested.put("alpha", null);
+        Map<String, Object> params = new HashMap<>();
+        params.put("orderId", "order-42");
+        params.put("amount", new BigDecimal("19.90"));
+        params.put("quantity", 3L);
+        params.put("note", "café \"quoted\"\n\ttab \u0001 😀");
+        params.put("details", nested);
+        params.put("placedAt", new Date(1_700_000_000_000L));
+        params.put("ratio", Double.NaN);
+        CanonicalRequestHasher hasher = new CanonicalRequestHasher(objectMapper, CanonicalRequestHasher.Mode.COMPAT);
+
+        // When
+        String id = hasher.hash(params);
+
+        // Then
+        assertThat(id).isEqualTo(legacyRequestId(params));
+    }
+
+    @Test
+    void canonicalModeShouldIgnoreNestedMapAndSetOrder() throws Exception {
+        // Given
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("b", 2);
+        first.put("a", 1);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("a", 1);
+        second.put("b", 2);
+        CanonicalRequestHasher hasher = new CanonicalRequestHasher(objectMapper, CanonicalRequestHasher.Mode.CANONICAL);
+
+        // When
+        String firstId = hasher.hash(Map.of("details", first, "tags", new LinkedHashSet<>(List.of("x", "y"))));
+        String secondId = hasher.hash(Map.of("details", second, "tags", new LinkedHashSet<>(List.of("y", "x"))));
+
+        // Then
+        assertThat(firstId).isEqualTo(secondId);
+    }
+
+    @Test
+    void shouldKeepListOrderSignificant() throws Exception {
+        // Given
+        CanonicalRequestHasher hasher = new CanonicalRequestHasher(objectMapper, CanonicalRequestHasher.Mode.CANONICAL);
+
+        // When
+        String firstId = hasher.hash(Map.of("items", List.of("a", "b")));
+        String secondId = hasher.hash(Map.of("items", List.of("b", "a")));
+
+        // Then
+        assertThat(firstId).isNotEqualTo(secondId).hasSize(64);
+    }
+
+    // What ApiRequestService.generateRequestId did before the streaming hasher
+    private String legacyRequestId(Map<String, Object> params) throws Exception {
+        String json = objectMapper.writeValueAsString(new TreeMap<>(params));
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash);
+    }
+}
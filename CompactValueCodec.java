@@ -0,0 +1,268 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link ValueCodec} producing a small framed byte[]:
+ * <pre>
+ * [format version:1][flags:1][type tag][uncompressed length:4, only if compressed][payload]
+ * </pre>
+ * The type tag is a 2-byte id for registered types, otherwise the class name. Payloads at
+ * or above the compression threshold are deflated when that makes them smaller. The payload
+ * itself is written by the given ObjectMapper, so a binary mapper (e.g. Smile) can be
+ * passed in for even smaller values. A null value is just the version and a null flag.
+ *
+ * <p>Decoding never loads a class named by the stored bytes: only registered types, types
+ * passed to {@link #allow} and the plain JDK types JSON maps to are accepted, so whoever can
+ * write to the cache can't make the reader instantiate anything else. Other maps and lists
+ * (e.g. Map.of, bson Documents) are written as LinkedHashMap and ArrayList; any other type
+ * must be registered or allowed before it is encoded. The uncompressed length stored with a
+ * compressed value is checked against maxValueBytes before anything is allocated for it.
+ */
+public class CompactValueCodec implements ValueCodec {
+    private static final byte FORMAT_VERSION = 1;
+    private static final int FLAG_COMPRESSED = 1;
+    private static final int FLAG_REGISTERED_TYPE = 1 << 1;
+    private static final int FLAG_NULL = 1 << 2;
+    private static final int DEFAULT_MAX_VALUE_BYTES = 16 * 1024 * 1024; // Mongo's document limit
+    private static final List<Class<?>> JDK_TYPES = List.of(
+        String.class, Boolean.class, Integer.class, Long.class, Short.class, Byte.class, Double.class,
+        Float.class, BigInteger.class, BigDecimal.class, HashMap.class, LinkedHashMap.class, ArrayList.class);
+
+    private static final ThreadLocal<Deflater> DEFLATER =
+        ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final ObjectMapper objectMapper;
+    private final int compressionThreshold;
+    private final int maxValueBytes;
+    private final Map<Class<?>, Short> idsByType = new ConcurrentHashMap<>();
+    private final Map<Short, Class<?>> typesById = new ConcurrentHashMap<>();
+    // Every type decode may instantiate, registered or not
+    private final Map<String, Class<?>> typesByName = new ConcurrentHashMap<>();
+
+    public CompactValueCodec() {
+        this(new ObjectMapper(), 1024);
+    }
+
+    /**
+     * @param compressionThreshold payloads of at least this many bytes are deflated
+     */
+    public CompactValueCodec(ObjectMapper objectMapper, int compressionThreshold) {
+        this(objectMapper, compressionThreshold, DEFAULT_MAX_VALUE_BYTES);
+    }
+
+    /**
+     * @param compressionThreshold payloads of at least this many bytes are deflated
+     * @param maxValueBytes        largest payload encoded or inflated, uncompressed
+     */
+    public CompactValueCodec(ObjectMapper objectMapper, int compressionThreshold, int maxValueBytes) {
+        this.objectMapper = objectMapper;
+        this.compressionThreshold = compressionThreshold;
+        this.maxValueBytes = maxValueBytes;
+        JDK_TYPES.forEach(this::allow);
+    }
+
+    /**
+     * Tags values of the given type with a 2-byte id instead of the class name. Ids are part
+     * of the stored format, so they must never be reused for a different type.
+     */
+    public CompactValueCodec register(int typeId, Class<?> type) {
+        Class<?> previous = typesById.putIfAbsent((short) typeId, type);
+        if (previous != null && previous != type) {
+            throw new IllegalArgumentException("Type id " + typeId + " already registered for " + previous.getName());
+        }
+        idsByType.put(type, (short) typeId);
+        // Values written by class name before the type was registered stay readable
+        typesByName.put(type.getName(), type);
+        return this;
+    }
+
+    /**
+     * Lets values of the given type be stored under its class name, without a type id.
+     */
+    public CompactValueCodec allow(Class<?> type) {
+        typesByName.put(type.getName(), type);
+        return this;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        if (value == null) {
+            return new byte[]{FORMAT_VERSION, FLAG_NULL};
+        }
+        Class<?> type = writtenType(value);
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode " + value.getClass().getName(), e);
+        }
+        if (payload.length > maxValueBytes) {
+            throw new IllegalArgumentException("Cache value of " + payload.length + " bytes exceeds the "
+                + maxValueBytes + " byte limit");
+        }
+
+        int flags = 0;
+        int uncompressedLength = payload.length;
+        if (payload.length >= compressionThreshold) {
+            byte[] compressed = deflate(payload);
+            if (compressed.length < payload.length) {
+                payload = compressed;
+                flags |= FLAG_COMPRESSED;
+            }
+        }
+
+        Short typeId = idsByType.get(type);
+        byte[] typeName = null;
+        int size = 2 + payload.length + ((flags & FLAG_COMPRESSED) != 0 ? 4 : 0);
+        if (typeId != null) {
+            flags |= FLAG_REGISTERED_TYPE;
+            size += 2;
+        } else {
+            typeName = type.getName().getBytes(StandardCharsets.UTF_8);
+            size += 2 + typeName.length;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(FORMAT_VERSION).put((byte) flags);
+        if (typeId != null) {
+            out.putShort(typeId);
+        } else {
+            out.putShort((short) typeName.length).put(typeName);
+        }
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            out.putInt(uncompressedLength);
+        }
+        out.put(payload);
+        return out.array();
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        byte version = in.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported cache value format version " + version);
+        }
+        int flags = in.get();
+        if ((flags & FLAG_NULL) != 0) {
+            return null;
+        }
+
+        Class<?> type;
+        if ((flags & FLAG_REGISTERED_TYPE) != 0) {
+            short typeId = in.getShort();
+            type = typesById.get(typeId);
+            if (type == null) {
+                throw new IllegalStateException("Unknown cache value type id " + typeId);
+            }
+        } else {
+            byte[] name = new byte[in.getShort()];
+            in.get(name);
+            String typeName = new String(name, StandardCharsets.UTF_8);
+            type = typesByName.get(typeName);
+            if (type == null) {
+                throw new IllegalStateException("Cache value type " + typeName + " is not registered or allowed");
+            }
+        }
+
+        byte[] payload;
+        int offset;
+        int length;
+        if ((flags & FLAG_COMPRESSED) != 0) {
+            int uncompressedLength = in.getInt();
+            // Read from stored bytes, so it's checked before it sizes an allocation
+            if (uncompressedLength < 0 || uncompressedLength > maxValueBytes) {
+                throw new IllegalStateException("Corrupt compressed cache value, declared length "
+                    + uncompressedLength + " outside 0.." + maxValueBytes);
+            }
+            payload = inflate(bytes, in.position(), bytes.length - in.position(), uncompressedLength);
+            offset = 0;
+            length = payload.length;
+        } else {
+            payload = bytes;
+            offset = in.position();
+            length = bytes.length - offset;
+        }
+
+        try {
+            return objectMapper.readValue(payload, offset, length, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode " + type.getName(), e);
+        }
+    }
+
+    // The type the value is tagged with, one decode will accept
+    private Class<?> writtenType(Object value) {
+        Class<?> type = value.getClass();
+        if (idsByType.containsKey(type) || typesByName.get(type.getName()) == type) {
+            return type;
+        }
+        if (value instanceof Map) {
+            return LinkedHashMap.class;
+        }
+        if (value instanceof List) {
+            return ArrayList.class;
+        }
+        throw new IllegalArgumentException("Cache value type " + type.getName()
+            + " is not registered or allowed; register or allow it on the codec");
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] input, int offset, int length, int uncompressedLength) {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(input, offset, length);
+        byte[] out = new byte[uncompressedLength];
+        try {
+            int n = 0;
+            while (n < uncompressedLength && !inflater.finished()) {
+                int read = inflater.inflate(out, n, uncompressedLength - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed cache value");
+                }
+                n += read;
+            }
+            // A stream that ends early would otherwise hand back a zero-padded buffer
+            if (n < uncompressedLength) {
+                throw new IllegalStateException("Corrupt compressed cache value, inflated to " + n
+                    + " of " + uncompressedLength + " declared bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed cache value", e);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,103 @@
+class CompactValueCodecTest {
+
+    private final CompactValueCodec codec = new CompactValueCodec(new ObjectMapper(), 64);
+
+    @Test
+    void shouldRoundTripNull() {
+        // When
+        byte[] encoded = codec.encode(null);
+
+        // Then
+        assertThat(codec.decode(encoded)).isNull();
+        assertThat(codec.decode(null)).isNull();
+    }
+
+    @Test
+    void shouldRoundTripCompressedMapAsPlainMap() {
+        // Given - Map.of's class isn't one decode accepts, so it is written as a LinkedHashMap
+        Map<String, Object> value = Map.of("auctionId", "auction-1", "description", "x".repeat(500));
+
+        // When
+        Object decoded = codec.decode(codec.encode(value));
+
+        // Then
+        assertThat(decoded).isInstanceOf(LinkedHashMap.class).isEqualTo(value);
+    }
+
+    @Test
+    void shouldRejectTypeNameThatIsNotAllowed() {
+        // Given - a frame naming a class the codec never agreed to create
+        byte[] name = "java.net.URL".getBytes(StandardCharsets.UTF_8);
+        byte[] payload = "\"http://example.com\"".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(4 + name.length + payload.length);
+        frame.put((byte) 1).put((byte) 0).putShort((short) name.length).put(name).put(payload);
+
+        // When / Then
+        assertThatThrownBy(() -> codec.decode(frame.array()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("not registered or allowed");
+    }
+
+    @Test
+    void shouldRefuseToEncodeUnknownType() {
+        // When / Then
+        assertThatThrownBy(() -> codec.encode(new Bid("auction-1", 100.0)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(codec.allow(Bid.class).decode(codec.encode(new Bid("auction-1", 100.0))))
+            .isEqualTo(new Bid("auction-1", 100.0));
+    }
+
+    @Test
+    void shouldRejectDeclaredLengthOutsideLimit() {
+        // Given - a compressed frame whose stored length is negative, and one above the limit
+        byte[] negative = compressedFrame(-1, "{}".getBytes(StandardCharsets.UTF_8));
+        byte[] huge = compressedFrame(Integer.MAX_VALUE, "{}".getBytes(StandardCharsets.UTF_8));
+
+        // When / Then - rejected before anything is allocated for them
+        assertThatThrownBy(() -> codec.decode(negative))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("declared length");
+        assertThatThrownBy(() -> codec.decode(huge))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("declared length");
+    }
+
+    @Test
+    void shouldRejectStreamShorterThanDeclaredLength() {
+        // Given - a complete deflate stream that inflates to fewer bytes than the frame declares
+        Deflater deflater = new Deflater();
+        deflater.setInput("{\"auctionId\":\"auction-1\"}".getBytes(StandardCharsets.UTF_8));
+        deflater.finish();
+        byte[] buffer = new byte[256];
+        byte[] stream = Arrays.copyOf(buffer, deflater.deflate(buffer));
+        deflater.end();
+
+        // When / Then
+        assertThatThrownBy(() -> codec.decode(compressedFrame(1000, stream)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("declared bytes");
+    }
+
+    @Test
+    void shouldRefuseToEncodeValueOverLimit() {
+        // Given
+        CompactValueCodec small = new CompactValueCodec(new ObjectMapper(), 64, 100);
+
+        // When / Then
+        assertThatThrownBy(() -> small.encode("x".repeat(200)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("exceeds");
+    }
+
+    // [version][flags: compressed][type name][uncompressed length][deflate stream]
+    private static byte[] compressedFrame(int uncompressedLength, byte[] stream) {
+        byte[] name = LinkedHashMap.class.getName().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(8 + name.length + stream.length);
+        frame.put((byte) 1).put((byte) 1).putShort((short) name.length).put(name)
+            .putInt(uncompressedLength).put(stream);
+        return frame.array();
+    }
+
+    record Bid(String auctionId, double amount) {
+    }
+}
@@ -4,10 +4,14 @@ import io.cucumber.junit.Cucumber;
 import io.cucumber.junit.CucumberOptions;
 import org.junit.runner.RunWith;
 
+/**
+ * Functional scenarios. The @load scenarios run separately through {@link LoadTestRunner}.
+ */
 @RunWith(Cucumber.class)
 @CucumberOptions(
     features = "src/test/resources/features",
     glue = "com.example.steps",
+    tags = "not @load",
     plugin = {
         "pretty",
         "html:target/cucumber-reports.html",
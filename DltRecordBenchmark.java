@@ -0,0 +1,78 @@
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record work {@link CustomDltRecoverer} does before the send: building the custom
+ * message header and the outgoing DLT record. The template is never used to send, so no
+ * broker is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DltRecordBenchmark {
+
+    private ExposedRecoverer recoverer;
+    private ConsumerRecord<String, String> record;
+    private Exception exception;
+    private TopicPartition dlt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        KafkaTemplate<Object, Object> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of()));
+        recoverer = new ExposedRecoverer(template);
+        record = new ConsumerRecord<>("orders-topic", 3, 1_234_567L, "order-42",
+            "{\"orderId\":\"order-42\",\"quantity\":-1,\"price\":19.99}");
+        record.headers().add("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01".getBytes());
+        exception = new CustomDltException("Custom DLT message: quantity must be positive",
+            new IllegalArgumentException("quantity must be positive"));
+        dlt = new TopicPartition("orders-topic.DLT", 3);
+    }
+
+    @Benchmark
+    public Headers customMessageHeaders() {
+        return CustomDltRecoverer.customMessageHeaders(record, exception);
+    }
+
+    @Benchmark
+    public ProducerRecord<Object, Object> createProducerRecord() {
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        Headers custom = CustomDltRecoverer.customMessageHeaders(record, exception);
+        if (custom != null) {
+            custom.forEach(headers::add);
+        }
+        return recoverer.create(record, dlt, headers);
+    }
+
+    // Opens up the protected factory method
+    static class ExposedRecoverer extends CustomDltRecoverer {
+        ExposedRecoverer(KafkaTemplate<?, ?> template) {
+            super(template);
+        }
+
+        ProducerRecord<Object, Object> create(ConsumerRecord<?, ?> record, TopicPartition dlt, Headers headers) {
+            return createProducerRecord(record, dlt, headers, null, null);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Document(collection = "api_requests")
@@ -14,6 +16,8 @@ public class ExternalRequestDocument {
     
     private Date timestamp = new Date();
     private String status = "pending";
+    // When the pending claim was taken; see ApiRequestService.claimAndCall
+    private Date claimedAt;
     private String endpoint;
     private Map<String, Object> payload;
 
@@ -26,6 +30,17 @@ public class ExternalRequestDocument {
         this.endpoint = endpoint;
         this.payload = payload;
     }
+
+    // Detached snapshot, e.g. for caches that hand the same request to several callers
+    public ApiRequest(ApiRequest other) {
+        this.id = other.id;
+        this.requestId = other.requestId;
+        this.timestamp = other.timestamp;
+        this.status = other.status;
+        this.claimedAt = other.claimedAt;
+        this.endpoint = other.endpoint;
+        this.payload = other.payload == null ? null : Collections.unmodifiableMap(new LinkedHashMap<>(other.payload));
+    }
     
     // Getters and setters for all fields
 }
@@ -1,44 +1,147 @@
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Runs every {@link HealthContributor} in parallel. Each check has its own timeout and the
+ * whole response an overall deadline, so one slow dependency reports DOWN instead of stalling
+ * the endpoint. The last result is reused for a short while, and callers arriving during a
+ * check wait for that check rather than starting another.
+ */
 @Service
 public class HealthCheckService {
-    
-    private final MongoTemplate mongoTemplate;
+
+    private final List<HealthContributor> contributors = new ArrayList<>();
+    private final ExecutorService executor;
+    private final long checkTimeoutMs;
+    private final long deadlineMs;
+    private final long cacheMs;
     private final LocalDateTime startupTime;
     private final String appName = "my-springboot-app";
-    
-    public HealthCheckService(MongoTemplate mongoTemplate) {
-        this.mongoTemplate = mongoTemplate;
+
+    private HealthStatus lastResult;
+    private long lastResultAt;
+    private CompletableFuture<HealthStatus> inFlight;
+
+    public HealthCheckService(List<HealthContributor> contributors,
+                              @Qualifier("blockingWorkExecutor") ExecutorService executor,
+                              @Value("${health.check-timeout-ms:2000}") long checkTimeoutMs,
+                              @Value("${health.deadline-ms:3000}") long deadlineMs,
+                              @Value("${health.cache-ms:5000}") long cacheMs) {
         this.startupTime = LocalDateTime.now();
+        // 1. Application self-status, then the pluggable checks (MongoDB, Kafka, ...)
+        this.contributors.add(HealthContributor.of("application", this::checkApplicationHealth));
+        this.contributors.addAll(contributors);
+        this.executor = executor;
+        this.checkTimeoutMs = checkTimeoutMs;
+        this.deadlineMs = deadlineMs;
+        this.cacheMs = cacheMs;
     }
 
     public HealthStatus checkHealth() {
-        HealthStatus health = new HealthStatus();
-        health.setAppName(appName);
-        health.setTimestamp(LocalDateTime.now());
-        
-        Map<String, Object> components = new HashMap<>();
-        
-        // 1. Application self-status
-        components.put("application", checkApplicationHealth());
-        
-        // 2. MongoDB connectivity check
-        components.put("mongodb", checkMongoDBHealth());
-        
-        // Determine overall status
-        boolean allUp = components.values().stream()
-                .allMatch(status -> ((Map)status).get("status").equals("UP"));
-        
-        health.setStatus(allUp ? "UP" : "DOWN");
-        health.setDetails(components);
-        
-        return health;
+        CompletableFuture<HealthStatus> check;
+        synchronized (this) {
+            if (lastResult != null && System.currentTimeMillis() - lastResultAt < cacheMs) {
+                return lastResult;
+            }
+            if (inFlight == null) {
+                inFlight = CompletableFuture.supplyAsync(this::runChecks, executor);
+            }
+            check = inFlight;
+        }
+        try {
+            return check.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for health check", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Health check failed", e.getCause());
+        }
+    }
+
+    private HealthStatus runChecks() {
+        try {
+            HealthStatus health = new HealthStatus();
+            health.setAppName(appName);
+            health.setTimestamp(LocalDateTime.now());
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+            Map<String, CompletableFuture<Map<String, Object>>> running = new LinkedHashMap<>();
+            for (HealthContributor contributor : contributors) {
+                running.put(contributor.name(), CompletableFuture
+                    .supplyAsync(() -> runCheck(contributor), executor)
+                    .completeOnTimeout(down("timed out after " + checkTimeoutMs + " ms", checkTimeoutMs),
+                        checkTimeoutMs, TimeUnit.MILLISECONDS));
+            }
+
+            Map<String, Object> components = new HashMap<>();
+            for (Map.Entry<String, CompletableFuture<Map<String, Object>>> entry : running.entrySet()) {
+                long remaining = deadline - System.nanoTime();
+                try {
+                    components.put(entry.getKey(), entry.getValue().get(Math.max(0, remaining), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    components.put(entry.getKey(), down("overall deadline of " + deadlineMs + " ms exceeded", deadlineMs));
+                }
+            }
+
+            // Determine overall status
+            boolean allUp = components.values().stream()
+                    .allMatch(status -> ((Map) status).get("status").equals("UP"));
+
+            health.setStatus(allUp ? "UP" : "DOWN");
+            health.setDetails(components);
+
+            synchronized (this) {
+                lastResult = health;
+                lastResultAt = System.currentTimeMillis();
+            }
+            return health;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted running health checks", e);
+        } catch (ExecutionException e) {
+            // runCheck never throws, so this doesn't happen
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            synchronized (this) {
+                inFlight = null;
+            }
+        }
+    }
+
+    private static Map<String, Object> runCheck(HealthContributor contributor) {
+        long start = System.nanoTime();
+        Map<String, Object> result = new HashMap<>();
+        try {
+            Map<String, Object> details = contributor.check();
+            if (details != null) result.putAll(details);
+            result.putIfAbsent("status", "UP");
+        } catch (Exception e) {
+            result.put("status", "DOWN");
+            result.put("error", e.getMessage());
+        }
+        result.put("latencyMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result;
+    }
+
+    private static Map<String, Object> down(String error, long latencyMs) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("status", "DOWN");
+        result.put("error", error);
+        result.put("latencyMs", latencyMs);
+        return result;
     }
 
     private Map<String, Object> checkApplicationHealth() {
@@ -49,26 +152,9 @@ public class HealthCheckService {
         return appHealth;
     }
 
-    private Map<String, Object> checkMongoDBHealth() {
-        Map<String, Object> mongoHealth = new HashMap<>();
-        
-        try {
-            // Simple MongoDB ping command
-            mongoTemplate.getDb().runCommand(new Document("ping", 1));
-            mongoHealth.put("status", "UP");
-            mongoHealth.put("server", mongoTemplate.getDb().getName());
-            mongoHealth.put("pingTime", System.currentTimeMillis());
-        } catch (Exception e) {
-            mongoHealth.put("status", "DOWN");
-            mongoHealth.put("error", e.getMessage());
-        }
-        
-        return mongoHealth;
-    }
-
     private String formatUptime() {
         Duration duration = Duration.between(startupTime, LocalDateTime.now());
-        return String.format("%dd %dh %dm %ds", 
+        return String.format("%dd %dh %dm %ds",
             duration.toDays(),
             duration.toHours() % 24,
             duration.toMinutes() % 60,
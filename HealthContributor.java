@@ -0,0 +1,29 @@
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * One component of the application health, e.g. Mongo or Kafka. {@link HealthCheckService}
+ * runs every contributor bean in parallel under a timeout; a check that throws or runs out
+ * of time reports DOWN. The returned details go into the health response as they are, plus
+ * status and latency.
+ */
+public interface HealthContributor {
+
+    String name();
+
+    Map<String, Object> check() throws Exception;
+
+    static HealthContributor of(String name, Callable<Map<String, Object>> check) {
+        return new HealthContributor() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public Map<String, Object> check() throws Exception {
+                return check.call();
+            }
+        };
+    }
+}
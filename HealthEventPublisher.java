@@ -0,0 +1,146 @@
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Publishes this instance's health to app.health.events-topic only when it changes, plus a
+ * heartbeat every heartbeatMs so consumers can tell a quiet instance from a dead one.
+ * Events are keyed {@code app:instance} on a compacted topic, so reading the topic from the
+ * start gives the latest state of every instance. Sends are async and never block the
+ * scheduler.
+ *
+ * <p>Value layout, big-endian:
+ * <pre>
+ * [version:1][status:1][timestamp millis:8][component count:1]
+ *   then per component: [name length:1][name UTF-8][status:1]
+ * </pre>
+ * Status codes: 0 DOWN, 1 UP, 2 anything else.
+ *
+ * <p>Migration: these events used to go to app.health.topic as JSON HealthStatus. Binary
+ * events go to their own topic, {@code <app.health.topic>.v1} unless app.health.events-topic
+ * says otherwise, so readers of the old topic never meet a value they can't parse. Move
+ * consumers to the new topic (reading from the start gives every instance's state once the
+ * pods have published), then retire the old one.
+ */
+@Component
+public class HealthEventPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(HealthEventPublisher.class);
+    private static final byte FORMAT_VERSION = 1;
+
+    private final DefaultKafkaProducerFactory<String, byte[]> eventProducerFactory;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final String topic;
+    private final String key;
+    private final long heartbeatMs;
+
+    // Statuses last sent, overall under "" - compared to decide whether to publish
+    private Map<String, Byte> lastPublished;
+    private long lastPublishedAt;
+
+    public HealthEventPublisher(ProducerFactory<String, Object> producerFactory,
+                                @Value("${app.health.events-topic:${app.health.topic}.v1}") String topic,
+                                @Value("${spring.application.name:my-springboot-app}") String appName,
+                                @Value("${app.instance-id:${HOSTNAME:local}}") String instanceId,
+                                @Value("${app.health.heartbeat-ms:300000}") long heartbeatMs) {
+        // Own small producer with byte[] values; never waits long for metadata
+        Map<String, Object> props = new HashMap<>(producerFactory.getConfigurationProperties());
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 1000);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+        this.eventProducerFactory = new DefaultKafkaProducerFactory<>(props, new StringSerializer(), new ByteArraySerializer());
+        this.kafkaTemplate = new KafkaTemplate<>(eventProducerFactory);
+        this.topic = topic;
+        this.key = appName + ":" + instanceId;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    /**
+     * Sends the status if it differs from the last one sent, or the heartbeat is due.
+     */
+    public synchronized void publishIfChanged(HealthStatus health) {
+        Map<String, Byte> statuses = statusesOf(health);
+        long now = System.currentTimeMillis();
+        if (statuses.equals(lastPublished) && now - lastPublishedAt < heartbeatMs) {
+            return;
+        }
+        lastPublished = statuses;
+        lastPublishedAt = now;
+
+        long timestamp = health.getTimestamp() != null
+            ? health.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            : now;
+        try {
+            kafkaTemplate.send(topic, key, encode(statuses, timestamp)).whenComplete((result, ex) -> {
+                if (ex != null) publishFailed(ex);
+            });
+        } catch (RuntimeException e) {
+            publishFailed(e);
+        }
+    }
+
+    private synchronized void publishFailed(Throwable error) {
+        logger.warn("Failed to publish health event for {}: {}", key, error.getMessage());
+        // Make the next tick try again instead of waiting for another change
+        lastPublished = null;
+    }
+
+    private static Map<String, Byte> statusesOf(HealthStatus health) {
+        Map<String, Byte> statuses = new TreeMap<>();
+        statuses.put("", statusCode(health.getStatus()));
+        if (health.getDetails() != null) {
+            health.getDetails().forEach((name, value) -> statuses.put(name,
+                value instanceof Map<?, ?> component ? statusCode(component.get("status")) : statusCode(null)));
+        }
+        return statuses;
+    }
+
+    static byte[] encode(Map<String, Byte> statuses, long timestamp) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeByte(statuses.get(""));
+            out.writeLong(timestamp);
+            out.writeByte(Math.min(statuses.size() - 1, 255));
+            int written = 0;
+            for (Map.Entry<String, Byte> entry : statuses.entrySet()) {
+                if (entry.getKey().isEmpty()) continue;
+                if (written++ == 255) break;
+                byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                int length = Math.min(name.length, 255);
+                out.writeByte(length);
+                out.write(name, 0, length);
+                out.writeByte(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte statusCode(Object status) {
+        if ("UP".equals(status)) return 1;
+        if ("DOWN".equals(status)) return 0;
+        return 2;
+    }
+
+    @PreDestroy
+    public void close() {
+        eventProducerFactory.destroy();
+    }
+}
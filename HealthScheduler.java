@@ -4,8 +4,23 @@ public class HealthScheduler {
     @Autowired
     private HealthCheckService healthCheckService;
 
-    @Scheduled(fixedRate = 60000) // Every 60 seconds
+    @Autowired
+    private HealthEventPublisher healthEventPublisher;
+
+    // Checking is cheap and only changes are sent, so check often; a heartbeat still goes
+    // out every app.health.heartbeat-ms
+    @Scheduled(fixedRateString = "${app.health.check-interval-ms:10000}")
     public void scheduleHealthCheck() {
-        healthCheckService.publishHealthStatus();
+        healthEventPublisher.publishIfChanged(healthCheckService.checkHealth());
+    }
+
+    // Compacted: the topic keeps the latest event per app:instance key. A topic of that name
+    // that already exists is altered to match (spring.kafka.admin.modify-topic-configs)
+    @Bean
+    public NewTopic healthEventsTopic(@Value("${app.health.events-topic:${app.health.topic}.v1}") String topicName) {
+        return TopicBuilder.name(topicName)
+            .partitions(1)
+            .compact()
+            .build();
     }
 }
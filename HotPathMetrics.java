@@ -0,0 +1,90 @@
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms recorded on the order and request hot paths. Recording is
+ * a striped-counter increment or a histogram bucket increment, with no allocation and no
+ * locks, so it stays on at full load. {@link HotPathMetricsBinder} exports these through
+ * Micrometer; components that already keep their own counters (caches, DLT, dedup filter)
+ * are exported from those directly.
+ */
+@Component
+public class HotPathMetrics {
+
+    public enum MongoOp { LOOKUP, INSERT, SAVE }
+
+    private final LatencyHistogram orderLatency = new LatencyHistogram();
+    private final LongAdder ordersProcessed = new LongAdder();
+    private final LongAdder ordersFailed = new LongAdder();
+
+    private final LatencyHistogram[] mongoLatency = new LatencyHistogram[MongoOp.values().length];
+
+    private final LongAdder newRequests = new LongAdder();
+    private final LongAdder duplicateRequests = new LongAdder();
+    private final LongAdder concurrentDuplicates = new LongAdder();
+
+    public HotPathMetrics() {
+        for (int i = 0; i < mongoLatency.length; i++) {
+            mongoLatency[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * An order handled by a listener, from receipt to done; failed orders are the ones sent
+     * to the DLT or left for redelivery.
+     */
+    public void orderProcessed(long startNanos, boolean success) {
+        orderLatency.recordSince(startNanos);
+        if (success) {
+            ordersProcessed.increment();
+        } else {
+            ordersFailed.increment();
+        }
+    }
+
+    public void mongoCall(MongoOp op, long startNanos) {
+        mongoLatency[op.ordinal()].recordSince(startNanos);
+    }
+
+    public void newRequest() {
+        newRequests.increment();
+    }
+
+    public void duplicateRequest() {
+        duplicateRequests.increment();
+    }
+
+    // Lost the race on the unique index to another caller with the same request id
+    public void concurrentDuplicate() {
+        concurrentDuplicates.increment();
+    }
+
+    public LatencyHistogram getOrderLatency() {
+        return orderLatency;
+    }
+
+    public long getOrdersProcessed() {
+        return ordersProcessed.sum();
+    }
+
+    public long getOrdersFailed() {
+        return ordersFailed.sum();
+    }
+
+    public LatencyHistogram getMongoLatency(MongoOp op) {
+        return mongoLatency[op.ordinal()];
+    }
+
+    public long getNewRequests() {
+        return newRequests.sum();
+    }
+
+    public long getDuplicateRequests() {
+        return duplicateRequests.sum();
+    }
+
+    public long getConcurrentDuplicates() {
+        return concurrentDuplicates.sum();
+    }
+}
@@ -0,0 +1,166 @@
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exports {@link HotPathMetrics} and the counters the caches, DLT recoverer and request
+ * pipeline already keep, through Micrometer (and so Prometheus). Everything is read at
+ * scrape time through function counters and gauges; nothing is added to the hot path.
+ * Histograms are exported as count, mean, max and p50/p99/p99.9 gauges; the percentiles
+ * cover the histogram's sliding window, so they follow current latency. The components are
+ * injected as providers, resolved when bindTo runs rather than when the binder is created,
+ * and tagged with their bean names.
+ */
+@Component
+public class HotPathMetricsBinder implements MeterBinder {
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+    private static final String[] QUANTILE_TAGS = {"0.5", "0.99", "0.999"};
+
+    private final HotPathMetrics metrics;
+    private final ObjectProvider<Map<String, RequestIdDedupFilter>> dedupFilters;
+    private final ObjectProvider<Map<String, ApiRequestStatusBatcher>> statusBatchers;
+    private final ObjectProvider<Map<String, CustomDltRecoverer>> dltRecoverers;
+    private final ObjectProvider<RetryTopicConfig> retryTopicConfig;
+    private final ObjectProvider<Map<String, NearCache>> nearCaches;
+    private final ObjectProvider<Map<String, MappedFileCache>> mappedFileCaches;
+    private final ObjectProvider<Map<String, LoadingCache>> loadingCaches;
+
+    public HotPathMetricsBinder(HotPathMetrics metrics,
+                                ObjectProvider<Map<String, RequestIdDedupFilter>> dedupFilters,
+                                ObjectProvider<Map<String, ApiRequestStatusBatcher>> statusBatchers,
+                                ObjectProvider<Map<String, CustomDltRecoverer>> dltRecoverers,
+                                ObjectProvider<RetryTopicConfig> retryTopicConfig,
+                                ObjectProvider<Map<String, NearCache>> nearCaches,
+                                ObjectProvider<Map<String, MappedFileCache>> mappedFileCaches,
+                                ObjectProvider<Map<String, LoadingCache>> loadingCaches) {
+        this.metrics = metrics;
+        this.dedupFilters = dedupFilters;
+        this.statusBatchers = statusBatchers;
+        this.dltRecoverers = dltRecoverers;
+        this.retryTopicConfig = retryTopicConfig;
+        this.nearCaches = nearCaches;
+        this.mappedFileCaches = mappedFileCaches;
+        this.loadingCaches = loadingCaches;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Order processing
+        bindHistogram(registry, "orders.process.latency", metrics.getOrderLatency(), Tags.empty());
+        counter(registry, "orders.processed", metrics, HotPathMetrics::getOrdersProcessed, Tags.empty());
+        counter(registry, "orders.failed", metrics, HotPathMetrics::getOrdersFailed, Tags.empty());
+
+        // Request dedup and Mongo
+        counter(registry, "api.requests", metrics, HotPathMetrics::getNewRequests, Tags.of("outcome", "new"));
+        counter(registry, "api.requests", metrics, HotPathMetrics::getDuplicateRequests, Tags.of("outcome", "duplicate"));
+        counter(registry, "api.requests", metrics, HotPathMetrics::getConcurrentDuplicates,
+            Tags.of("outcome", "concurrent_duplicate"));
+        for (HotPathMetrics.MongoOp op : HotPathMetrics.MongoOp.values()) {
+            bindHistogram(registry, "mongo.call.latency", metrics.getMongoLatency(op),
+                Tags.of("op", op.name().toLowerCase()));
+        }
+        beans(dedupFilters).forEach((name, filter) -> {
+            counter(registry, "dedup.filter", filter, RequestIdDedupFilter::getDefinitelyNewCount,
+                Tags.of("result", "definitely_new"));
+            counter(registry, "dedup.filter", filter, RequestIdDedupFilter::getRecentHitCount,
+                Tags.of("result", "recent_hit"));
+            counter(registry, "dedup.filter", filter, RequestIdDedupFilter::getPossibleDuplicateCount,
+                Tags.of("result", "possible_duplicate"));
+        });
+        beans(statusBatchers).forEach((name, batcher) -> {
+            counter(registry, "api.requests.status.writes", batcher, ApiRequestStatusBatcher::getWrittenCount, Tags.empty());
+            counter(registry, "api.requests.status.failed", batcher, ApiRequestStatusBatcher::getFailedCount, Tags.empty());
+            Gauge.builder("api.requests.status.queued", batcher, ApiRequestStatusBatcher::getQueuedCount).register(registry);
+        });
+
+        // DLT
+        beans(dltRecoverers).forEach((name, dlt) -> {
+            Tags tags = Tags.of("recoverer", name);
+            counter(registry, "dlt.published", dlt, CustomDltRecoverer::getPublishedCount, tags);
+            counter(registry, "dlt.failed", dlt, CustomDltRecoverer::getFailedCount, tags);
+            Gauge.builder("dlt.backlog", dlt, CustomDltRecoverer::getBacklog).tags(tags).register(registry);
+            Gauge.builder("dlt.latency.mean", dlt, CustomDltRecoverer::getAverageLatencyMillis)
+                .tags(tags).baseUnit("milliseconds").register(registry);
+            Gauge.builder("dlt.latency.max", dlt, CustomDltRecoverer::getMaxLatencyMillis)
+                .tags(tags).baseUnit("milliseconds").register(registry);
+        });
+        // Created by the retry topic feature, possibly after this runs, so summed at scrape time
+        RetryTopicConfig retryTopics = retryTopicConfig.getIfAvailable();
+        if (retryTopics != null) {
+            List<CustomDltRecoverer> created = retryTopics.getDltRecoverers();
+            Tags tags = Tags.of("recoverer", "retryTopics");
+            counter(registry, "dlt.published", created, list -> sum(list, CustomDltRecoverer::getPublishedCount), tags);
+            counter(registry, "dlt.failed", created, list -> sum(list, CustomDltRecoverer::getFailedCount), tags);
+            Gauge.builder("dlt.latency.max", created,
+                    list -> list.stream().mapToDouble(CustomDltRecoverer::getMaxLatencyMillis).max().orElse(0))
+                .tags(tags).baseUnit("milliseconds").register(registry);
+        }
+
+        // Caches
+        beans(nearCaches).forEach((name, cache) -> {
+            Tags tags = Tags.of("cache", name);
+            counter(registry, "cache.gets", cache, NearCache::getHitCount, tags.and("result", "hit"));
+            counter(registry, "cache.gets", cache, NearCache::getMissCount, tags.and("result", "miss"));
+            counter(registry, "cache.evictions", cache, NearCache::getEvictionCount, tags);
+            counter(registry, "cache.expirations", cache, NearCache::getExpirationCount, tags);
+            Gauge.builder("cache.size", cache, NearCache::size).tags(tags).register(registry);
+        });
+        beans(mappedFileCaches).forEach((name, cache) -> {
+            Tags tags = Tags.of("cache", name);
+            counter(registry, "cache.gets", cache, MappedFileCache::getHitCount, tags.and("result", "hit"));
+            counter(registry, "cache.gets", cache, MappedFileCache::getMissCount, tags.and("result", "miss"));
+            counter(registry, "cache.compactions", cache, MappedFileCache::getCompactionCount, tags);
+            counter(registry, "cache.rejected", cache, MappedFileCache::getRejectedCount, tags);
+            Gauge.builder("cache.size", cache, MappedFileCache::size).tags(tags).register(registry);
+        });
+        beans(loadingCaches).forEach((name, cache) -> {
+            Tags tags = Tags.of("cache", name);
+            counter(registry, "cache.loads", cache, LoadingCache::getLoadCount, tags);
+            counter(registry, "cache.loads.coalesced", cache, LoadingCache::getCoalescedCount, tags);
+            counter(registry, "cache.stale.served", cache, LoadingCache::getStaleServedCount, tags);
+            counter(registry, "cache.load.failures", cache, LoadingCache::getLoadFailureCount, tags);
+        });
+    }
+
+    // Bean name -> bean; empty when there is none
+    private static <T> Map<String, T> beans(ObjectProvider<Map<String, T>> provider) {
+        Map<String, T> beans = provider.getIfAvailable();
+        return beans != null ? beans : Map.of();
+    }
+
+    private static <T> long sum(List<T> sources, ToLongFunction<T> value) {
+        long total = 0;
+        for (T source : sources) {
+            total += value.applyAsLong(source);
+        }
+        return total;
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value, Tags tags) {
+        FunctionCounter.builder(name, source, value).tags(tags).register(registry);
+    }
+
+    private static void bindHistogram(MeterRegistry registry, String name, LatencyHistogram histogram, Tags tags) {
+        counter(registry, name + ".count", histogram, LatencyHistogram::getCount, tags);
+        Gauge.builder(name + ".mean", histogram, LatencyHistogram::getMeanMillis)
+            .tags(tags).baseUnit("milliseconds").register(registry);
+        Gauge.builder(name + ".max", histogram, LatencyHistogram::getMaxMillis)
+            .tags(tags).baseUnit("milliseconds").register(registry);
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            double percentile = PERCENTILES[i];
+            Gauge.builder(name, histogram, h -> h.getPercentileMillis(percentile))
+                .tags(tags.and("quantile", QUANTILE_TAGS[i]))
+                .baseUnit("milliseconds")
+                .register(registry);
+        }
+    }
+}
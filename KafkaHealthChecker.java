@@ -1,8 +1,5 @@
-import org.apache.kafka.clients.admin.AdminClient;
-import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.common.errors.TimeoutException;
 
-import java.util.Properties;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -15,37 +12,38 @@ public class KafkaHealthChecker {
 
     public static void main(String[] args) {
         final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        // One client for the life of the process, shared with any other probe in this JVM
+        final SharedKafkaAdmin admin = SharedKafkaAdmin.shared(BOOTSTRAP_SERVERS, REQUEST_TIMEOUT_MS);
         
         // Add shutdown hook to clean up resources
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             scheduler.shutdown();
+            admin.close();
             System.out.println("Scheduler shutdown complete");
         }));
 
         // Schedule periodic health checks
         scheduler.scheduleWithFixedDelay(
-                KafkaHealthChecker::checkBrokerHealth,
+                () -> checkBrokerHealth(admin),
                 0,  // Initial delay
                 CHECK_INTERVAL_SEC,
                 TimeUnit.SECONDS
         );
     }
 
-    private static void checkBrokerHealth() {
-        final Properties props = new Properties();
-        props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS);
-        props.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, REQUEST_TIMEOUT_MS);
-
-        try (AdminClient admin = AdminClient.create(props)) {
-            // Attempt a lightweight operation (listTopics with names only)
-            admin.listTopics().names().get(REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-            System.out.printf("[%s] Broker is reachable%n", System.currentTimeMillis());
-        } catch (TimeoutException e) {
-            System.err.printf("[%s] Broker unreachable (timeout): %s%n", 
-                            System.currentTimeMillis(), e.getMessage());
-        } catch (Exception e) {
-            System.err.printf("[%s] Broker check failed: %s%n", 
-                            System.currentTimeMillis(), e.getMessage());
-        }
+    private static void checkBrokerHealth(SharedKafkaAdmin admin) {
+        // Lightweight operation (listTopics with names only), answered from the cache within its
+        // TTL; the result is reported on the admin client's thread, the scheduler never waits
+        admin.topicNames().whenComplete((names, error) -> {
+            if (error == null) {
+                System.out.printf("[%s] Broker is reachable%n", System.currentTimeMillis());
+            } else if (error instanceof TimeoutException) {
+                System.err.printf("[%s] Broker unreachable (timeout): %s%n", 
+                                System.currentTimeMillis(), error.getMessage());
+            } else {
+                System.err.printf("[%s] Broker check failed: %s%n", 
+                                System.currentTimeMillis(), error.getMessage());
+            }
+        });
     }
 }
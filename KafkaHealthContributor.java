@@ -0,0 +1,45 @@
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka reachability through the shared admin client; within its cache TTL repeated checks
+ * don't reach the brokers at all.
+ */
+@Component
+public class KafkaHealthContributor implements HealthContributor {
+
+    private final SharedKafkaAdmin admin;
+
+    public KafkaHealthContributor(@Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers,
+                                  @Value("${health.check-timeout-ms:2000}") int timeoutMs) {
+        this.admin = SharedKafkaAdmin.shared(bootstrapServers, timeoutMs);
+    }
+
+    @Override
+    public String name() {
+        return "kafka";
+    }
+
+    @Override
+    public Map<String, Object> check() throws Exception {
+        SharedKafkaAdmin.ClusterSnapshot cluster = admin.cluster()
+            .get(admin.getRequestTimeoutMs(), TimeUnit.MILLISECONDS);
+        Map<String, Object> details = new HashMap<>();
+        details.put("clusterId", cluster.clusterId());
+        details.put("brokers", cluster.nodes().size());
+        if (cluster.controller() != null) {
+            details.put("controllerId", cluster.controller().id());
+        }
+        return details;
+    }
+
+    @PreDestroy
+    public void close() {
+        admin.close();
+    }
+}
@@ -1,70 +1,233 @@
 import org.apache.kafka.clients.admin.*;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.Node;
-import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
 import java.util.*;
 import java.util.concurrent.*;
 
 public class KafkaHealthProbe {
 
-    private final AdminClient adminClient;
-    private final String bootstrapServers;
+    private static final long FULL_REFRESH_MS = 30_000;
+    private static final long GROUPS_REFRESH_MS = 30_000;
+
+    private final SharedKafkaAdmin admin;
     private final int timeoutMs;
+    private final String lagTopic;
+
+    // Topic descriptions carried over between checks; see refreshDescriptions
+    private final Map<String, TopicDescription> descriptions = new ConcurrentHashMap<>();
+    private volatile Set<Integer> lastBrokerIds = Set.of();
+    private volatile int lastControllerId = -1;
+    private volatile long lastFullRefresh;
+    private volatile Set<String> consumerGroups = Set.of();
+    private volatile long consumerGroupsFetchedAt;
 
     public KafkaHealthProbe(String bootstrapServers, int timeoutMs) {
-        this.bootstrapServers = bootstrapServers;
-        this.timeoutMs = timeoutMs;
-        this.adminClient = createAdminClient();
+        this(SharedKafkaAdmin.shared(bootstrapServers, timeoutMs), "orders-topic");
     }
 
-    private AdminClient createAdminClient() {
-        Properties props = new Properties();
-        props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, timeoutMs);
-        props.put(AdminClientConfig.RETRIES_CONFIG, 3); // Retry transient errors
-        return AdminClient.create(props);
+    /**
+     * @param lagTopic topic whose consumer-group lag is reported
+     */
+    public KafkaHealthProbe(SharedKafkaAdmin admin, String lagTopic) {
+        this.admin = admin;
+        this.timeoutMs = admin.getRequestTimeoutMs();
+        this.lagTopic = lagTopic;
     }
 
     public HealthStatus checkHealth() {
-        HealthStatus status = new HealthStatus();
-        
         try {
-            // 1. Check basic connectivity and cluster description
-            DescribeClusterResult clusterResult = adminClient.describeCluster();
-            status.controllerId = clusterResult.controller().get().id();
-            status.nodes = clusterResult.nodes().get();
-            
-            // 2. Check broker configurations
-            Collection<ConfigResource> resources = new ArrayList<>();
-            for (Node node : status.nodes) {
-                resources.add(new ConfigResource(ConfigResource.Type.BROKER, node.idString()));
-            }
-            status.configs = adminClient.describeConfigs(resources).all().get();
-            
-            // 3. Check topic metadata
-            status.topics = adminClient.listTopics().names().get();
-            
-            // 4. Check for under-replicated partitions
-            status.isHealthy = true;
-            status.error = null;
-            
-        } catch (ExecutionException e) {
-            handleException(status, e.getCause());
+            // The admin calls carry their own timeouts; this only guards against a lost callback
+            return checkHealthAsync().get(3L * timeoutMs, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
+            HealthStatus status = new HealthStatus();
             status.isHealthy = false;
             status.error = "Operation interrupted: " + e.getMessage();
             Thread.currentThread().interrupt();
-        } catch (Exception e) {
-            handleException(status, e);
+            return status;
+        } catch (ExecutionException | TimeoutException e) {
+            HealthStatus status = new HealthStatus();
+            handleException(status, e instanceof ExecutionException ? e.getCause() : e);
+            return status;
         }
-        
-        return status;
+    }
+
+    /**
+     * Runs the checks without blocking: cluster description and topic names come from the
+     * shared admin's cache, topics are described only when their metadata may have changed,
+     * and consumer lag for the lag topic is
+     * computed from committed versus latest offsets. Lag is informational: failing to get
+     * it is reported in consumerLagError and leaves the status healthy.
+     */
+    public CompletableFuture<HealthStatus> checkHealthAsync() {
+        HealthStatus status = new HealthStatus();
+        CompletableFuture<HealthStatus> result = new CompletableFuture<>();
+
+        // 1. Check basic connectivity and cluster description, 2. topic metadata
+        admin.cluster().toCompletionStage()
+            .thenCombine(admin.topicNames().toCompletionStage(), (cluster, topics) -> {
+                status.controllerId = cluster.controller() != null ? cluster.controller().id() : -1;
+                status.nodes = cluster.nodes();
+                status.topics = topics;
+                return cluster;
+            })
+            .thenCompose(cluster -> refreshDescriptions(cluster, status.topics))
+            .thenCompose(described -> {
+                // 3. Under-replicated and offline partitions
+                for (TopicDescription topic : described.values()) {
+                    for (TopicPartitionInfo partition : topic.partitions()) {
+                        if (partition.leader() == null || partition.leader().isEmpty()) {
+                            status.offlinePartitions++;
+                        } else if (partition.isr().size() < partition.replicas().size()) {
+                            status.underReplicatedPartitions++;
+                        }
+                    }
+                }
+                // 4. Consumer lag on the lag topic
+                return consumerLag(described.get(lagTopic)).exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                    status.consumerLagError = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+                    return Map.of();
+                });
+            })
+            .thenAccept(lag -> {
+                status.consumerLag = lag;
+                // Under-replication is reported but still serves traffic; offline partitions don't
+                status.isHealthy = status.offlinePartitions == 0;
+                status.error = status.isHealthy ? null : status.offlinePartitions + " partitions have no leader";
+            })
+            .whenComplete((done, error) -> {
+                if (error != null) {
+                    handleException(status, error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+                }
+                result.complete(status);
+            });
+        return result;
+    }
+
+    /**
+     * Describes only what may have changed: topics not seen before, topics that had
+     * unhealthy partitions last time, and everything when the broker set or the controller
+     * changes or the full-refresh interval has passed. A partition loses its leader when a
+     * broker leaves, which changes the broker set, so it shows on the next check. Deleted
+     * topics are dropped.
+     */
+    private CompletionStage<Map<String, TopicDescription>> refreshDescriptions(
+        SharedKafkaAdmin.ClusterSnapshot cluster, Set<String> topics
+    ) {
+        descriptions.keySet().retainAll(topics);
+
+        Set<Integer> brokerIds = new HashSet<>();
+        for (Node node : cluster.nodes()) {
+            brokerIds.add(node.id());
+        }
+        int controllerId = cluster.controller() != null ? cluster.controller().id() : -1;
+        long now = System.currentTimeMillis();
+        Set<String> toDescribe = new HashSet<>();
+        if (!brokerIds.equals(lastBrokerIds) || controllerId != lastControllerId
+                || now - lastFullRefresh >= FULL_REFRESH_MS) {
+            toDescribe.addAll(topics);
+            lastBrokerIds = brokerIds;
+            lastControllerId = controllerId;
+            lastFullRefresh = now;
+        } else {
+            for (String topic : topics) {
+                TopicDescription known = descriptions.get(topic);
+                if (known == null || hasUnhealthyPartitions(known)) {
+                    toDescribe.add(topic);
+                }
+            }
+        }
+
+        if (toDescribe.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.copyOf(descriptions));
+        }
+        return admin.admin().describeTopics(toDescribe).allTopicNames().toCompletionStage()
+            .thenApply(fresh -> {
+                descriptions.putAll(fresh);
+                return Map.copyOf(descriptions);
+            });
+    }
+
+    private static boolean hasUnhealthyPartitions(TopicDescription topic) {
+        for (TopicPartitionInfo partition : topic.partitions()) {
+            if (partition.leader() == null || partition.leader().isEmpty()
+                || partition.isr().size() < partition.replicas().size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Total lag per consumer group on the lag topic: latest offset minus committed offset,
+     * summed over partitions. Groups without commits on the topic are left out.
+     */
+    private CompletionStage<Map<String, Long>> consumerLag(TopicDescription topic) {
+        if (topic == null) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        List<TopicPartition> partitions = new ArrayList<>();
+        Map<TopicPartition, OffsetSpec> latestSpec = new HashMap<>();
+        for (TopicPartitionInfo partition : topic.partitions()) {
+            TopicPartition tp = new TopicPartition(lagTopic, partition.partition());
+            partitions.add(tp);
+            latestSpec.put(tp, OffsetSpec.latest());
+        }
+
+        return consumerGroups().thenCompose(groups -> {
+            if (groups.isEmpty()) {
+                return CompletableFuture.completedFuture(Map.<String, Long>of());
+            }
+            // One request for all groups, limited to the lag topic's partitions
+            Map<String, ListConsumerGroupOffsetsSpec> specs = new HashMap<>();
+            for (String group : groups) {
+                specs.put(group, new ListConsumerGroupOffsetsSpec().topicPartitions(partitions));
+            }
+            return admin.admin().listConsumerGroupOffsets(specs).all().toCompletionStage()
+                .thenCombine(admin.admin().listOffsets(latestSpec).all().toCompletionStage(), (committed, latest) -> {
+                    Map<String, Long> lag = new TreeMap<>();
+                    committed.forEach((group, offsets) -> {
+                        long groupLag = 0;
+                        boolean any = false;
+                        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+                            ListOffsetsResult.ListOffsetsResultInfo end = latest.get(entry.getKey());
+                            if (entry.getValue() == null || end == null) continue;
+                            groupLag += Math.max(0, end.offset() - entry.getValue().offset());
+                            any = true;
+                        }
+                        if (any) lag.put(group, groupLag);
+                    });
+                    return lag;
+                });
+        });
+    }
+
+    // Group membership rarely changes and only feeds the lag figures, so the list is cached
+    private CompletionStage<Set<String>> consumerGroups() {
+        if (System.currentTimeMillis() - consumerGroupsFetchedAt < GROUPS_REFRESH_MS) {
+            return CompletableFuture.completedFuture(consumerGroups);
+        }
+        return admin.admin().listConsumerGroups().all().toCompletionStage()
+            .thenApply(listings -> {
+                Set<String> groups = new HashSet<>();
+                for (ConsumerGroupListing listing : listings) {
+                    groups.add(listing.groupId());
+                }
+                consumerGroups = groups;
+                consumerGroupsFetchedAt = System.currentTimeMillis();
+                return groups;
+            });
     }
 
     private void handleException(HealthStatus status, Throwable t) {
         status.isHealthy = false;
         status.error = t.getClass().getSimpleName() + ": " + t.getMessage();
         
-        if (t instanceof TimeoutException) {
+        if (t instanceof TimeoutException || t instanceof org.apache.kafka.common.errors.TimeoutException) {
             status.errorType = ErrorType.CONNECTION_TIMEOUT;
         } else if (t instanceof org.apache.kafka.common.errors.AuthenticationException) {
             status.errorType = ErrorType.AUTHENTICATION_FAILURE;
@@ -74,7 +237,7 @@ public class KafkaHealthProbe {
     }
 
     public void shutdown() {
-        adminClient.close();
+        admin.close();
     }
 
     public static class HealthStatus {
@@ -83,8 +246,13 @@ public class KafkaHealthProbe {
         public ErrorType errorType;
         public int controllerId;
         public Collection<Node> nodes;
-        public Map<ConfigResource, Config> configs;
         public Set<String> topics;
+        public int underReplicatedPartitions;
+        public int offlinePartitions;
+        // Consumer group -> total lag on the lag topic, the signal for scaling order listeners
+        public Map<String, Long> consumerLag = Map.of();
+        // Why consumerLag is empty, if fetching it failed; doesn't affect isHealthy
+        public String consumerLagError;
     }
 
     public enum ErrorType {
@@ -105,6 +273,9 @@ public class KafkaHealthProbe {
             if (!status.isHealthy) {
                 System.err.println("Error: " + status.error);
             }
+            System.out.println("Under-replicated: " + status.underReplicatedPartitions
+                + ", offline: " + status.offlinePartitions + ", lag: "
+                + (status.consumerLagError != null ? "unavailable (" + status.consumerLagError + ")" : status.consumerLag));
         }, 0, 5, TimeUnit.SECONDS);
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -0,0 +1,134 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free latency histogram with log-linear buckets: each power of two is split into 16
+ * buckets, so any recorded value is reported within about 6% and recording is one atomic
+ * increment. Values are in nanoseconds.
+ * <p>
+ * Percentiles cover a sliding window, like Micrometer's distribution statistics: buckets
+ * are kept per slot of a third of the window and a slot is cleared when it comes round
+ * again, so they reflect the last two to three thirds of the window rather than everything
+ * since start. Count, mean and max are kept since start.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+    private static final int WINDOW_SLOTS = 3;
+    private static final long DEFAULT_WINDOW_MILLIS = 60_000;
+
+    private final long slotMillis;
+    private final LongSupplier clock;
+    private final AtomicLongArray[] slots = new AtomicLongArray[WINDOW_SLOTS];
+    // The period (clock / slotMillis) each slot is counting
+    private final AtomicLongArray slotPeriods = new AtomicLongArray(WINDOW_SLOTS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram() {
+        this(DEFAULT_WINDOW_MILLIS, System::currentTimeMillis);
+    }
+
+    /**
+     * @param windowMillis how far back the percentiles reach
+     */
+    public LatencyHistogram(long windowMillis) {
+        this(windowMillis, System::currentTimeMillis);
+    }
+
+    LatencyHistogram(long windowMillis, LongSupplier clock) {
+        this.slotMillis = Math.max(1, windowMillis / WINDOW_SLOTS);
+        this.clock = clock;
+        for (int i = 0; i < WINDOW_SLOTS; i++) {
+            slots[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        currentSlot().incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / 1_000_000.0 / n;
+    }
+
+    public double getMaxMillis() {
+        return max.get() / 1_000_000.0;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0-100) within the window,
+     * in milliseconds; 0 when nothing was recorded in it.
+     */
+    public double getPercentileMillis(double percentile) {
+        long period = clock.getAsLong() / slotMillis;
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int slot = 0; slot < WINDOW_SLOTS; slot++) {
+            // A slot nothing was recorded in lately still holds an older period
+            if (period - slotPeriods.get(slot) >= WINDOW_SLOTS) continue;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] += slots[slot].get(i);
+            }
+        }
+        for (long n : snapshot) {
+            total += n;
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && snapshot[i] > 0) {
+                return Math.min(upperBound(i), max.get()) / 1_000_000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    // The first record of a new period clears the slot it takes over; records racing the
+    // clear may be lost, which only thins that period's sample slightly
+    private AtomicLongArray currentSlot() {
+        long period = clock.getAsLong() / slotMillis;
+        int slot = (int) (period % WINDOW_SLOTS);
+        long held = slotPeriods.get(slot);
+        if (held < period && slotPeriods.compareAndSet(slot, held, period)) {
+            AtomicLongArray counts = slots[slot];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+        }
+        return slots[slot];
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) (value >>> shift) & (SUB_COUNT - 1);
+        return (shift + 1) * SUB_COUNT + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int shift = bucket / SUB_COUNT - 1;
+        long sub = bucket % SUB_COUNT;
+        return ((SUB_COUNT + sub + 1) << shift) - 1;
+    }
+}
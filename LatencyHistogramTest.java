@@ -0,0 +1,71 @@
+class LatencyHistogramTest {
+
+    @Test
+    void shouldReportPercentilesWithinBucketPrecision() {
+        // Given - 1..1000 ms, one sample each
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1_000_000L);
+        }
+
+        // When
+        double p50 = histogram.getPercentileMillis(50);
+        double p99 = histogram.getPercentileMillis(99);
+
+        // Then - buckets are at most 1/16 wide relative to their value
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(p50).isBetween(500.0, 500.0 * 1.07);
+        assertThat(p99).isBetween(990.0, 1000.0);
+        assertThat(histogram.getMaxMillis()).isEqualTo(1000.0);
+        assertThat(histogram.getMeanMillis()).isEqualTo(500.5);
+    }
+
+    @Test
+    void shouldReportPercentilesOverRecentWindowOnly() {
+        // Given - slow calls, then a full window of fast ones
+        AtomicLong now = new AtomicLong();
+        LatencyHistogram histogram = new LatencyHistogram(60_000, now::get);
+        for (int i = 0; i < 100; i++) {
+            histogram.record(900_000_000L);
+        }
+        now.addAndGet(60_000);
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1_000_000L);
+        }
+
+        // When
+        double p99 = histogram.getPercentileMillis(99);
+
+        // Then - the slow calls have left the window, but still count since start
+        assertThat(p99).isLessThan(1.1);
+        assertThat(histogram.getCount()).isEqualTo(200);
+        assertThat(histogram.getMaxMillis()).isEqualTo(900.0);
+    }
+
+    @Test
+    void shouldMapEveryValueIntoABucketThatContainsIt() {
+        // Given
+        long[] values = {0, 1, 15, 16, 17, 1_000, 123_456_789, Long.MAX_VALUE / 2};
+
+        for (long value : values) {
+            // When
+            int bucket = LatencyHistogram.bucketOf(value);
+
+            // Then
+            assertThat(LatencyHistogram.upperBound(bucket)).isGreaterThanOrEqualTo(value);
+            if (bucket > 0) {
+                assertThat(LatencyHistogram.upperBound(bucket - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    void shouldReportZeroWhenEmpty() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When / Then
+        assertThat(histogram.getPercentileMillis(99)).isZero();
+        assertThat(histogram.getMeanMillis()).isZero();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example;
+
+import io.cucumber.junit.Cucumber;
+import io.cucumber.junit.CucumberOptions;
+import org.junit.runner.RunWith;
+
+/**
+ * The @load scenarios (throughput and latency budgets), kept out of the functional run
+ * because they take minutes and need a quiet machine: mvn test -Dtest=LoadTestRunner
+ */
+@RunWith(Cucumber.class)
+@CucumberOptions(
+    features = "src/test/resources/features",
+    glue = "com.example.steps",
+    tags = "@load",
+    plugin = {
+        "pretty",
+        "html:target/cucumber-load-reports.html",
+        "json:target/cucumber-load.json"
+    }
+)
+public class LoadTestRunner {
+}
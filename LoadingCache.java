@@ -0,0 +1,190 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Adds a loader-based {@code get(key, loader)} on top of any {@link Cache}. Concurrent misses
+ * for the same key share a single load instead of all hitting Mongo and the price source.
+ * With a stale window, a value past its ttl is still returned for up to that long while
+ * one background refresh replaces it.
+ */
+public class LoadingCache implements Cache {
+    private static final Logger logger = LoggerFactory.getLogger(LoadingCache.class);
+    private static final int SWEEP_EVERY_LOADS = 1024;
+
+    private final Cache delegate;
+    private final long staleWindowMillis;
+    private final Executor refreshExecutor;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // When values loaded through this node stop being fresh; keys put elsewhere are fresh until they expire.
+    // Dropped on a miss, and swept once past the stale window, when the delegate has expired the value too
+    private final ConcurrentHashMap<String, Long> freshUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger loadsSinceSweep = new AtomicInteger();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    /**
+     * Coalesces misses only, never serves stale values.
+     */
+    public LoadingCache(Cache delegate) {
+        this(delegate, 0, Runnable::run);
+    }
+
+    /**
+     * @param staleWindowMillis how long past its ttl a loaded value may still be served
+     * @param refreshExecutor   runs the background refreshes of stale values
+     */
+    public LoadingCache(Cache delegate, long staleWindowMillis, Executor refreshExecutor) {
+        this.delegate = delegate;
+        this.staleWindowMillis = staleWindowMillis;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public Object get(String key, Function<String, ?> loader) {
+        return get(key, loader, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the cached value, or loads, stores and returns it on a miss. Only one
+     * caller per key runs the loader; the others wait for its result.
+     */
+    public Object get(String key, Function<String, ?> loader, long ttl) {
+        Object value = delegate.get(key);
+        if (value != null) {
+            Long fresh = freshUntil.get(key);
+            if (staleWindowMillis > 0 && fresh != null && fresh < System.currentTimeMillis()) {
+                staleServed.increment();
+                load(key, loader, ttl, true);
+            }
+            return value;
+        }
+
+        // Evicted or expired in the delegate; a failed load must not leave the entry behind
+        freshUntil.remove(key);
+        try {
+            return load(key, loader, ttl, false).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void put(String key, Object value, long ttl) {
+        freshUntil.remove(key);
+        delegate.put(key, value, ttl);
+    }
+
+    @Override
+    public void delete(String key) {
+        freshUntil.remove(key);
+        delegate.delete(key);
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getStaleServedCount() {
+        return staleServed.sum();
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    private CompletableFuture<Object> load(String key, Function<String, ?> loader, long ttl, boolean background) {
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        if (!background) {
+            runLoad(key, loader, ttl, pending);
+            return pending;
+        }
+        try {
+            refreshExecutor.execute(() -> runLoad(key, loader, ttl, pending));
+        } catch (RejectedExecutionException e) {
+            // Keep serving the stale value, the next caller will try again
+            inFlight.remove(key, pending);
+            pending.completeExceptionally(e);
+        }
+        return pending;
+    }
+
+    private void runLoad(String key, Function<String, ?> loader, long ttl, CompletableFuture<Object> pending) {
+        loads.increment();
+        try {
+            Object value = loader.apply(key);
+            if (value != null) {
+                long now = System.currentTimeMillis();
+                // The stored copy outlives its ttl by the stale window so it can still be served
+                delegate.put(key, value, saturatedAdd(ttl, staleWindowMillis));
+                // Values without a ttl never go stale, so there is nothing to track for them
+                if (staleWindowMillis > 0 && ttl != Long.MAX_VALUE) {
+                    freshUntil.put(key, saturatedAdd(now, ttl));
+                } else {
+                    freshUntil.remove(key);
+                }
+            }
+            sweepIfDue();
+            pending.complete(value);
+        } catch (Throwable e) {
+            // Errors too, or callers joined on pending would wait forever
+            loadFailures.increment();
+            logger.warn("Loading cache key {} failed: {}", key, e.toString());
+            pending.completeExceptionally(e);
+            if (e instanceof Error error) {
+                throw error;
+            }
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    // Keys the delegate evicted and nobody asks for again would otherwise stay here for good
+    private void sweepIfDue() {
+        if (loadsSinceSweep.incrementAndGet() < SWEEP_EVERY_LOADS) return;
+        loadsSinceSweep.set(0);
+        long expired = System.currentTimeMillis() - staleWindowMillis;
+        freshUntil.values().removeIf(fresh -> fresh < expired);
+    }
+
+    int trackedKeyCount() {
+        return freshUntil.size();
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        return a >= Long.MAX_VALUE - b ? Long.MAX_VALUE : a + b;
+    }
+}
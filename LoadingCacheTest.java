@@ -0,0 +1,129 @@
+class LoadingCacheTest {
+
+    private final MapCache delegate = new MapCache();
+
+    @Test
+    void shouldLoadOnceForConcurrentMisses() throws Exception {
+        // Given
+        LoadingCache cache = new LoadingCache(delegate);
+        CountDownLatch loading = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, Object> slowLoader = key -> {
+            loads.incrementAndGet();
+            try {
+                loading.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "price-1";
+        };
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+
+        // When
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(callers.submit(() -> cache.get("auction-1", slowLoader, 60_000)));
+        }
+        Thread.sleep(100);
+        loading.countDown();
+
+        // Then
+        for (Future<Object> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("price-1");
+        }
+        assertThat(loads).hasValue(1);
+        callers.shutdownNow();
+    }
+
+    @Test
+    void shouldForgetFreshnessOfKeyEvictedFromDelegate() {
+        // Given
+        LoadingCache cache = new LoadingCache(delegate, 1_000, Runnable::run);
+        cache.get("auction-1", key -> "price-1", 60_000);
+        assertThat(cache.trackedKeyCount()).isEqualTo(1);
+
+        // When - evicted behind the loading cache's back, then a load that fails
+        delegate.entries.remove("auction-1");
+        assertThatThrownBy(() -> cache.get("auction-1", key -> {
+            throw new IllegalStateException("price source down");
+        }, 60_000)).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(cache.trackedKeyCount()).isZero();
+    }
+
+    @Test
+    void shouldNotTrackValuesWithoutTtl() {
+        // Given
+        LoadingCache cache = new LoadingCache(delegate, 1_000, Runnable::run);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            cache.get("auction-" + i, key -> "price", Long.MAX_VALUE);
+        }
+
+        // Then
+        assertThat(cache.trackedKeyCount()).isZero();
+        assertThat(delegate.entries).hasSize(100);
+    }
+
+    @Test
+    void shouldSweepFreshnessOfExpiredKeys() {
+        // Given - 1 ms ttl and stale window, so every entry has expired by the sweep
+        LoadingCache cache = new LoadingCache(delegate, 1, Runnable::run);
+
+        // When
+        for (int i = 0; i < 1_023; i++) {
+            cache.get("auction-" + i, key -> "price", 1);
+        }
+        long deadline = System.currentTimeMillis() + 10;
+        while (System.currentTimeMillis() <= deadline) {
+            Thread.onSpinWait();
+        }
+        cache.get("auction-last", key -> "price", 60_000);
+
+        // Then - only the key loaded last is still tracked
+        assertThat(cache.trackedKeyCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldClearInFlightLoadWhenLoaderThrowsError() {
+        // Given
+        LoadingCache cache = new LoadingCache(delegate);
+        Function<String, Object> brokenLoader = key -> {
+            throw new NoClassDefFoundError("PriceFeed");
+        };
+
+        // When
+        Throwable thrown = catchThrowable(() -> cache.get("auction-1", brokenLoader, 60_000));
+
+        // Then - the error reaches the caller and the next get loads again
+        assertThat(thrown).isInstanceOf(NoClassDefFoundError.class);
+        assertThat(cache.getLoadFailureCount()).isEqualTo(1);
+        assertThat(cache.get("auction-1", key -> "price-1", 60_000)).isEqualTo("price-1");
+    }
+
+    static class MapCache implements Cache {
+        final Map<String, Object> entries = new ConcurrentHashMap<>();
+
+        @Override
+        public Object get(String key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public void put(String key, Object value) {
+            entries.put(key, value);
+        }
+
+        @Override
+        public void put(String key, Object value, long ttl) {
+            entries.put(key, value);
+        }
+
+        @Override
+        public void delete(String key) {
+            entries.remove(key);
+        }
+    }
+}
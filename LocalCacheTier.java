@@ -0,0 +1,22 @@
+import java.util.List;
+
+/**
+ * An in-process tier sitting in front of a shared {@link Cache}. {@link CacheInvalidationListener}
+ * uses it to drop local copies of entries another node has changed.
+ */
+public interface LocalCacheTier {
+    /**
+     * Drops the local copy only; the shared entry is left alone.
+     */
+    void invalidate(String key);
+
+    /**
+     * Drops every local copy, e.g. when invalidation events may have been missed.
+     */
+    void invalidateAll();
+
+    /**
+     * Snapshot of the keys currently held locally.
+     */
+    List<String> keys();
+}
@@ -0,0 +1,507 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Local cache tier kept outside the Java heap so it survives restarts and adds no GC load.
+ * Entries are appended to a memory-mapped log file and located through an open-addressing
+ * hash index in direct memory. On open the log is scanned to rebuild the index, so a
+ * restarted gateway serves warm straight away. Space taken by overwritten, deleted and
+ * expired entries is reclaimed by compacting the live entries into a fresh file.
+ * <p>
+ * Like {@link NearCache} it reads through and writes through to an optional backing
+ * {@link Cache}, so it can be stacked in front of {@link MongoDBCache}. As there, a value read
+ * through is dropped if an invalidation for its key arrived while it was being loaded, and is
+ * never kept past the backing entry's own expiry.
+ * <p>
+ * Record layout: [length:4][crc:4][flags:1][expiresAt:8][keyLength:2][key][value]. The length
+ * is written last, so a record torn by a crash reads as the end of the log.
+ */
+public class MappedFileCache implements Cache, LocalCacheTier, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MappedFileCache.class);
+
+    private static final int MAGIC = 0x4D464331; // "MFC1"
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 4 + 4 + 1 + 8 + 2;
+    private static final byte FLAG_TOMBSTONE = 1;
+
+    private static final int SLOT_SIZE = 16;       // [hash:8][offset:8]
+    private static final long EMPTY = 0;
+    private static final long DELETED = -1;
+    private static final int GENERATION_STRIPES = 16; // power of two
+
+    private final Path file;
+    private final int capacityBytes;
+    private final ValueCodec codec;
+    private final Cache backing;
+    private final long maxLocalTtlMillis;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private MappedByteBuffer log;
+    private int writePosition;
+    private long deadBytes;
+    private long lastCompaction;
+
+    private ByteBuffer index;     // direct, off-heap
+    private int indexSlots;
+    private int liveEntries;
+    private int deletedSlots;
+
+    // Bumped under the write lock by every invalidation of a key in the stripe, held or not
+    private final long[] generations = new long[GENERATION_STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param file              log file, created if missing and reopened warm if present
+     * @param capacityBytes     size of the mapped file
+     * @param expectedEntries   sizes the initial hash index
+     * @param codec             encodes values into the log
+     * @param backing           cache to read through / write through to, or null for a standalone tier
+     * @param maxLocalTtlMillis how long values loaded from the backing cache are kept locally,
+     *                          or less when they expire sooner there
+     */
+    public MappedFileCache(Path file, int capacityBytes, int expectedEntries, ValueCodec codec,
+                           Cache backing, long maxLocalTtlMillis) {
+        this.file = file;
+        this.capacityBytes = capacityBytes;
+        this.codec = codec;
+        this.backing = backing;
+        this.maxLocalTtlMillis = maxLocalTtlMillis;
+        allocateIndex(expectedEntries);
+        try {
+            boolean existing = Files.exists(file) && Files.size(file) == capacityBytes;
+            log = map(file);
+            if (existing && log.getInt(0) == MAGIC) {
+                recover();
+            } else {
+                log.putInt(0, MAGIC);
+                // End marker, so whatever an older file left after the header is never replayed
+                log.putInt(HEADER_SIZE, 0);
+                writePosition = HEADER_SIZE;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open cache file " + file, e);
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long h = hash(keyBytes);
+        byte[] valueBytes = null;
+        long generation;
+        long now = System.currentTimeMillis();
+
+        lock.readLock().lock();
+        try {
+            int offset = find(h, keyBytes);
+            if (offset >= 0 && log.getLong(offset + 9) > now) {
+                valueBytes = readValue(offset, keyBytes.length);
+            }
+            generation = generations[stripe(h)];
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (valueBytes != null) {
+            hits.increment();
+            return codec.decode(valueBytes);
+        }
+        misses.increment();
+        if (backing == null) return null;
+
+        // Kept only if no invalidation for the key's stripe arrived while it was loading
+        ExpiringValue loaded = backing.getWithExpiry(key);
+        if (loaded == null) return null;
+        long expiresAt = Math.min(loaded.expiresAt(), expiresAt(now, maxLocalTtlMillis));
+        append(keyBytes, codec.encode(loaded.value()), expiresAt, false, generation);
+        return loaded.value();
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void put(String key, Object value, long ttl) {
+        if (backing != null) {
+            backing.put(key, value, ttl);
+        }
+        long ttlLocal = backing != null ? Math.min(ttl, maxLocalTtlMillis) : ttl;
+        append(key.getBytes(StandardCharsets.UTF_8), codec.encode(value),
+            expiresAt(System.currentTimeMillis(), ttlLocal), false, -1);
+    }
+
+    @Override
+    public void delete(String key) {
+        invalidate(key);
+        if (backing != null) {
+            backing.delete(key);
+        }
+    }
+
+    @Override
+    public void invalidate(String key) {
+        // A tombstone, so the delete also holds after a restart; skipped when the key isn't held
+        append(key.getBytes(StandardCharsets.UTF_8), new byte[0], 0, true, -1);
+    }
+
+    @Override
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            log.putInt(HEADER_SIZE, 0);
+            writePosition = HEADER_SIZE;
+            deadBytes = 0;
+            allocateIndex(indexSlots / 2);
+            for (int i = 0; i < GENERATION_STRIPES; i++) {
+                generations[i]++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> keys() {
+        List<String> keys = new ArrayList<>(liveEntries);
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < indexSlots; slot++) {
+                long offset = index.getLong(slot * SLOT_SIZE + 8);
+                if (offset > 0) {
+                    keys.add(readKey((int) offset));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return keys;
+    }
+
+    public int size() {
+        return liveEntries;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getCompactionCount() {
+        return compactions.sum();
+    }
+
+    /**
+     * Puts skipped because the file was still full after compacting.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            log.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // loadedAt is the stripe generation read before a read-through load, or -1 for a direct write
+    private void append(byte[] key, byte[] value, long expiresAt, boolean tombstone, long loadedAt) {
+        int length = RECORD_HEADER_SIZE + key.length + value.length;
+        long h = hash(key);
+        lock.writeLock().lock();
+        try {
+            if (tombstone) {
+                // Counted even when skipped below, so a read-through still in flight is dropped
+                generations[stripe(h)]++;
+                // Invalidations arrive for every remote change, most for keys this node doesn't hold
+                if (find(h, key) < 0) {
+                    return;
+                }
+            } else if (loadedAt >= 0 && generations[stripe(h)] != loadedAt) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            boolean full = writePosition + length + 4 > capacityBytes;
+            // When full with nothing known to be dead, only retry compaction now and then for expired entries
+            if ((full && (deadBytes > 0 || now - lastCompaction >= 1000)) || deadBytes > capacityBytes / 2) {
+                lastCompaction = now;
+                compact();
+            }
+            if (writePosition + length + 4 > capacityBytes) {
+                rejected.increment();
+                // A put that can't be stored must not leave an older value behind either
+                removeFromIndex(h, key);
+                logger.warn("Cache file {} full, entry not stored locally", file);
+                return;
+            }
+
+            int offset = writePosition;
+            writeRecord(log, offset, key, value, expiresAt, tombstone);
+            writePosition += length;
+
+            if (tombstone) {
+                removeFromIndex(h, key);
+                deadBytes += length;
+            } else {
+                int previous = insertIntoIndex(h, key, offset);
+                if (previous >= 0) {
+                    deadBytes += log.getInt(previous);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void writeRecord(ByteBuffer buffer, int offset, byte[] key, byte[] value,
+                                    long expiresAt, boolean tombstone) {
+        int length = RECORD_HEADER_SIZE + key.length + value.length;
+        byte flags = tombstone ? FLAG_TOMBSTONE : 0;
+        buffer.put(offset + 8, flags)
+            .putLong(offset + 9, expiresAt)
+            .putShort(offset + 17, (short) key.length)
+            .put(offset + RECORD_HEADER_SIZE, key)
+            .put(offset + RECORD_HEADER_SIZE + key.length, value)
+            .putInt(offset + 4, crc(buffer, offset, length));
+        if (offset + length + 4 <= buffer.capacity()) {
+            buffer.putInt(offset + length, 0); // end marker for recovery
+        }
+        buffer.putInt(offset, length);         // commits the record
+    }
+
+    // Rebuilds the index from the log after a restart
+    private void recover() {
+        int offset = HEADER_SIZE;
+        long now = System.currentTimeMillis();
+        while (offset + RECORD_HEADER_SIZE <= capacityBytes) {
+            int length = log.getInt(offset);
+            if (length < RECORD_HEADER_SIZE || offset + length > capacityBytes
+                    || log.getInt(offset + 4) != crc(log, offset, length)) {
+                break;
+            }
+
+            byte[] key = readKeyBytes(offset);
+            long h = hash(key);
+            if (log.get(offset + 8) == FLAG_TOMBSTONE || log.getLong(offset + 9) <= now) {
+                removeFromIndex(h, key);
+                deadBytes += length;
+            } else {
+                int previous = insertIntoIndex(h, key, offset);
+                if (previous >= 0) {
+                    deadBytes += log.getInt(previous);
+                }
+            }
+            offset += length;
+        }
+        writePosition = offset;
+        logger.info("Reopened cache file {} with {} entries", file, liveEntries);
+    }
+
+    // Copies live, unexpired entries into a fresh file and swaps it in
+    private void compact() {
+        compactions.increment();
+        Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+        long now = System.currentTimeMillis();
+        try {
+            Files.deleteIfExists(tmp);
+            MappedByteBuffer fresh = map(tmp);
+            fresh.putInt(0, MAGIC);
+
+            ByteBuffer oldIndex = index;
+            int oldSlots = indexSlots;
+            allocateIndex(Math.max(liveEntries, 16));
+            int position = HEADER_SIZE;
+            for (int slot = 0; slot < oldSlots; slot++) {
+                long offset = oldIndex.getLong(slot * SLOT_SIZE + 8);
+                if (offset <= 0 || log.getLong((int) offset + 9) <= now) continue;
+
+                int length = log.getInt((int) offset);
+                // Copy the record bytes as they are, the crc still holds
+                fresh.put(position, log, (int) offset, length);
+                insertIntoIndex(oldIndex.getLong(slot * SLOT_SIZE), readKeyBytes((int) offset), position);
+                position += length;
+            }
+            if (position + 4 <= capacityBytes) {
+                fresh.putInt(position, 0);
+            }
+            fresh.force();
+
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // The old mapping is released when it's garbage collected
+            log = fresh;
+            writePosition = position;
+            deadBytes = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact cache file " + file, e);
+        }
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw")) {
+            raf.setLength(capacityBytes);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+        }
+    }
+
+    // --- off-heap open-addressing index: slots of [hash][log offset], linear probing ---
+
+    private void allocateIndex(int expectedEntries) {
+        int slots = Integer.highestOneBit(Math.max(expectedEntries, 8) * 2 - 1) << 1;
+        index = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+        indexSlots = slots;
+        liveEntries = 0;
+        deletedSlots = 0;
+    }
+
+    private int find(long h, byte[] key) {
+        int mask = indexSlots - 1;
+        for (int slot = (int) h & mask, probes = 0; probes < indexSlots; slot = (slot + 1) & mask, probes++) {
+            long offset = index.getLong(slot * SLOT_SIZE + 8);
+            if (offset == EMPTY) return -1;
+            if (offset != DELETED && index.getLong(slot * SLOT_SIZE) == h && keyEquals((int) offset, key)) {
+                return (int) offset;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the log offset of the entry this one replaced, or -1
+    private int insertIntoIndex(long h, byte[] key, int offset) {
+        if ((liveEntries + deletedSlots + 1) * 4L > indexSlots * 3L) {
+            rehash(liveEntries * 2 > indexSlots / 2 ? indexSlots * 2 : indexSlots);
+        }
+        int mask = indexSlots - 1;
+        int firstFree = -1;
+        for (int slot = (int) h & mask, probes = 0; probes < indexSlots; slot = (slot + 1) & mask, probes++) {
+            long existing = index.getLong(slot * SLOT_SIZE + 8);
+            if (existing == EMPTY) {
+                if (firstFree < 0) firstFree = slot;
+                break;
+            }
+            if (existing == DELETED) {
+                if (firstFree < 0) firstFree = slot;
+                continue;
+            }
+            if (index.getLong(slot * SLOT_SIZE) == h && keyEquals((int) existing, key)) {
+                index.putLong(slot * SLOT_SIZE + 8, offset);
+                return (int) existing;
+            }
+        }
+        if (index.getLong(firstFree * SLOT_SIZE + 8) == DELETED) deletedSlots--;
+        index.putLong(firstFree * SLOT_SIZE, h).putLong(firstFree * SLOT_SIZE + 8, offset);
+        liveEntries++;
+        return -1;
+    }
+
+    private void removeFromIndex(long h, byte[] key) {
+        int mask = indexSlots - 1;
+        for (int slot = (int) h & mask, probes = 0; probes < indexSlots; slot = (slot + 1) & mask, probes++) {
+            long offset = index.getLong(slot * SLOT_SIZE + 8);
+            if (offset == EMPTY) return;
+            if (offset != DELETED && index.getLong(slot * SLOT_SIZE) == h && keyEquals((int) offset, key)) {
+                deadBytes += log.getInt((int) offset);
+                index.putLong(slot * SLOT_SIZE + 8, DELETED);
+                liveEntries--;
+                deletedSlots++;
+                return;
+            }
+        }
+    }
+
+    private void rehash(int newSlots) {
+        ByteBuffer oldIndex = index;
+        int oldSlots = indexSlots;
+        index = ByteBuffer.allocateDirect(newSlots * SLOT_SIZE);
+        indexSlots = newSlots;
+        deletedSlots = 0;
+        int mask = newSlots - 1;
+        for (int slot = 0; slot < oldSlots; slot++) {
+            long offset = oldIndex.getLong(slot * SLOT_SIZE + 8);
+            if (offset <= 0) continue;
+            long h = oldIndex.getLong(slot * SLOT_SIZE);
+            int target = (int) h & mask;
+            while (index.getLong(target * SLOT_SIZE + 8) != EMPTY) {
+                target = (target + 1) & mask;
+            }
+            index.putLong(target * SLOT_SIZE, h).putLong(target * SLOT_SIZE + 8, offset);
+        }
+    }
+
+    // --- record access ---
+
+    private boolean keyEquals(int offset, byte[] key) {
+        if (Short.toUnsignedInt(log.getShort(offset + 17)) != key.length) return false;
+        for (int i = 0; i < key.length; i++) {
+            if (log.get(offset + RECORD_HEADER_SIZE + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    private byte[] readKeyBytes(int offset) {
+        byte[] key = new byte[Short.toUnsignedInt(log.getShort(offset + 17))];
+        log.get(offset + RECORD_HEADER_SIZE, key);
+        return key;
+    }
+
+    private String readKey(int offset) {
+        return new String(readKeyBytes(offset), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readValue(int offset, int keyLength) {
+        byte[] value = new byte[log.getInt(offset) - RECORD_HEADER_SIZE - keyLength];
+        log.get(offset + RECORD_HEADER_SIZE + keyLength, value);
+        return value;
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(offset + 8).limit(offset + length));
+        return (int) crc.getValue();
+    }
+
+    // 64-bit FNV-1a; the index compares full keys, so collisions only cost a probe
+    private static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return h ^ (h >>> 32);
+    }
+
+    private static int stripe(long h) {
+        return (int) h & (GENERATION_STRIPES - 1);
+    }
+
+    private static long expiresAt(long now, long ttl) {
+        return ttl >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttl;
+    }
+}
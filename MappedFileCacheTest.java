@@ -0,0 +1,101 @@
+class MappedFileCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void invalidatingMissingKeyShouldLeaveLogUnchanged() throws Exception {
+        // Given
+        Path file = dir.resolve("cache.mfc");
+        MappedFileCache cache = new MappedFileCache(file, 64 * 1024, 16, new CompactValueCodec(), null, 60_000);
+        cache.put("auction-1", "price-1");
+        cache.close();
+        byte[] before = Files.readAllBytes(file);
+
+        // When
+        cache.invalidate("auction-unknown");
+        cache.close();
+
+        // Then
+        assertThat(Files.readAllBytes(file)).isEqualTo(before);
+        assertThat(cache.get("auction-1")).isEqualTo("price-1");
+    }
+
+    @Test
+    void invalidatedKeyShouldStayDeletedAfterReopen() {
+        // Given
+        Path file = dir.resolve("cache.mfc");
+        MappedFileCache cache = new MappedFileCache(file, 64 * 1024, 16, new CompactValueCodec(), null, 60_000);
+        cache.put("auction-1", "price-1");
+
+        // When
+        cache.invalidate("auction-1");
+        cache.close();
+        MappedFileCache reopened = new MappedFileCache(file, 64 * 1024, 16, new CompactValueCodec(), null, 60_000);
+
+        // Then
+        assertThat(reopened.get("auction-1")).isNull();
+        assertThat(reopened.size()).isZero();
+    }
+
+    @Test
+    void reinitialisedFileShouldNotReplayOldRecords() throws Exception {
+        // Given - a file with records but an unrecognised header
+        Path file = dir.resolve("cache.mfc");
+        MappedFileCache old = new MappedFileCache(file, 64 * 1024, 16, new CompactValueCodec(), null, 60_000);
+        old.put("auction-1", "price-1");
+        old.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), 0);
+        }
+
+        // When - re-initialised, then reopened without any write in between
+        new MappedFileCache(file, 64 * 1024, 16, new CompactValueCodec(), null, 60_000).close();
+        MappedFileCache reopened = new MappedFileCache(file, 64 * 1024, 16, new CompactValueCodec(), null, 60_000);
+
+        // Then
+        assertThat(reopened.size()).isZero();
+        assertThat(reopened.get("auction-1")).isNull();
+    }
+
+    @Test
+    void invalidationDuringReadThroughShouldDropLoadedValue() {
+        // Given - the backing load races an invalidation for a key this tier doesn't hold
+        Cache backing = mock(Cache.class, Answers.CALLS_REAL_METHODS);
+        MappedFileCache cache = new MappedFileCache(dir.resolve("cache.mfc"), 64 * 1024, 16,
+            new CompactValueCodec(), backing, 60_000);
+        when(backing.get("auction-1")).thenAnswer(invocation -> {
+            cache.invalidate("auction-1");
+            return "stale-price";
+        });
+
+        // When
+        Object loaded = cache.get("auction-1");
+
+        // Then - the caller gets the value, but it isn't kept over the invalidation
+        assertThat(loaded).isEqualTo("stale-price");
+        assertThat(cache.size()).isZero();
+        assertThat(cache.keys()).doesNotContain("auction-1");
+    }
+
+    @Test
+    void readThroughShouldNotOutliveBackingExpiry() throws Exception {
+        // Given
+        Cache backing = mock(Cache.class);
+        MappedFileCache cache = new MappedFileCache(dir.resolve("cache.mfc"), 64 * 1024, 16,
+            new CompactValueCodec(), backing, 60_000);
+        when(backing.getWithExpiry("auction-1"))
+            .thenReturn(new Cache.ExpiringValue("price-1", System.currentTimeMillis() + 20))
+            .thenReturn(null);
+
+        // When
+        Object first = cache.get("auction-1");
+        Thread.sleep(50);
+        Object second = cache.get("auction-1");
+
+        // Then
+        assertThat(first).isEqualTo("price-1");
+        assertThat(second).isNull();
+        verify(backing, times(2)).getWithExpiry("auction-1");
+    }
+}
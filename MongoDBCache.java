@@ -1,11 +1,57 @@
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public class MongoDBCache implements Cache {
     private final MongoCollection<Document> collection;
-    
+    private final Executor asyncExecutor;
+    private final ValueCodec codec;
+    private final String nodeId;
+
     public MongoDBCache(MongoCollection<Document> collection) {
+        this(collection, null, null);
+    }
+
+    public MongoDBCache(MongoCollection<Document> collection, Executor asyncExecutor) {
+        this(collection, asyncExecutor, null);
+    }
+
+    /**
+     * @param asyncExecutor runs the blocking driver calls behind the *Async methods;
+     *                      when null they complete inline on the caller's thread
+     * @param codec         stores values as BSON binary in this format; when null values are
+     *                      mapped to BSON by the driver. Documents written either way stay readable.
+     */
+    public MongoDBCache(MongoCollection<Document> collection, Executor asyncExecutor, ValueCodec codec) {
+        this(collection, asyncExecutor, codec, null);
+    }
+
+    /**
+     * @param nodeId stamped on every write, so this node's {@link CacheInvalidationListener}
+     *               can skip its own changes; null leaves writes unstamped
+     */
+    public MongoDBCache(MongoCollection<Document> collection, Executor asyncExecutor, ValueCodec codec,
+                        String nodeId) {
         this.collection = collection;
+        this.asyncExecutor = asyncExecutor;
+        this.codec = codec;
+        this.nodeId = nodeId;
         createTTLIndex();
     }
 
@@ -17,13 +63,21 @@ public class MongoDBCache implements Cache {
 
     @Override
     public Object get(String key) {
+        ExpiringValue found = getWithExpiry(key);
+        return found != null ? found.value() : null;
+    }
+
+    @Override
+    public ExpiringValue getWithExpiry(String key) {
         Document doc = collection.find(new Document("_id", key)).first();
         if (doc == null) return null;
-        if (doc.getLong("expirationTime") < System.currentTimeMillis()) {
-            delete(key);
+        long now = System.currentTimeMillis();
+        long expirationTime = doc.getLong("expirationTime");
+        if (expirationTime < now) {
+            deleteExpired(Filters.eq("_id", key), now);
             return null;
         }
-        return doc.get("value");
+        return new ExpiringValue(readValue(doc), expirationTime);
     }
 
     @Override
@@ -33,11 +87,8 @@ public class MongoDBCache implements Cache {
 
     @Override
     public void put(String key, Object value, long ttl) {
-        long expirationTime = System.currentTimeMillis() + ttl;
-        Document doc = new Document("_id", key)
-            .append("value", value)
-            .append("expirationTime", expirationTime);
-        collection.replaceOne(new Document("_id", key), doc, 
+        long now = System.currentTimeMillis();
+        collection.replaceOne(new Document("_id", key), toDocument(key, value, ttl, now),
             new ReplaceOptions().upsert(true));
     }
 
@@ -45,4 +96,118 @@ public class MongoDBCache implements Cache {
     public void delete(String key) {
         collection.deleteOne(new Document("_id", key));
     }
+
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys) {
+        Map<String, Object> result = new HashMap<>();
+        getAllWithExpiry(keys).forEach((key, found) -> result.put(key, found.value()));
+        return result;
+    }
+
+    @Override
+    public Map<String, ExpiringValue> getAllWithExpiry(Collection<String> keys) {
+        Map<String, ExpiringValue> result = new HashMap<>();
+        if (keys.isEmpty()) return result;
+
+        long now = System.currentTimeMillis();
+        List<String> expired = new ArrayList<>();
+        for (Document doc : collection.find(Filters.in("_id", keys))) {
+            long expirationTime = doc.getLong("expirationTime");
+            if (expirationTime < now) {
+                expired.add(doc.getString("_id"));
+            } else {
+                result.put(doc.getString("_id"), new ExpiringValue(readValue(doc), expirationTime));
+            }
+        }
+        if (!expired.isEmpty()) {
+            deleteExpired(Filters.in("_id", expired), now);
+        }
+        return result;
+    }
+
+    @Override
+    public void putAll(Map<String, ?> entries, long ttl) {
+        if (entries.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        ReplaceOptions upsert = new ReplaceOptions().upsert(true);
+        List<WriteModel<Document>> writes = new ArrayList<>(entries.size());
+        entries.forEach((key, value) -> writes.add(
+            new ReplaceOneModel<>(new Document("_id", key), toDocument(key, value, ttl, now), upsert)));
+
+        // Unordered: the server applies the upserts in parallel and one failure doesn't stop the rest
+        collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+    }
+
+    @Override
+    public void deleteAll(Collection<String> keys) {
+        if (keys.isEmpty()) return;
+        collection.deleteMany(Filters.in("_id", keys));
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(String key) {
+        if (asyncExecutor == null) return Cache.super.getAsync(key);
+        return CompletableFuture.supplyAsync(() -> get(key), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> getAllAsync(Collection<String> keys) {
+        if (asyncExecutor == null) return Cache.super.getAllAsync(keys);
+        return CompletableFuture.supplyAsync(() -> getAll(keys), asyncExecutor);
+    }
+
+    // Without an executor these run inline, as the defaults do, but keep the stored expiry
+    @Override
+    public CompletableFuture<ExpiringValue> getWithExpiryAsync(String key) {
+        return CompletableFuture.supplyAsync(() -> getWithExpiry(key), executorOrInline());
+    }
+
+    @Override
+    public CompletableFuture<Map<String, ExpiringValue>> getAllWithExpiryAsync(Collection<String> keys) {
+        return CompletableFuture.supplyAsync(() -> getAllWithExpiry(keys), executorOrInline());
+    }
+
+    @Override
+    public CompletableFuture<Void> putAllAsync(Map<String, ?> entries, long ttl) {
+        if (asyncExecutor == null) return Cache.super.putAllAsync(entries, ttl);
+        return CompletableFuture.runAsync(() -> putAll(entries, ttl), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllAsync(Collection<String> keys) {
+        if (asyncExecutor == null) return Cache.super.deleteAllAsync(keys);
+        return CompletableFuture.runAsync(() -> deleteAll(keys), asyncExecutor);
+    }
+
+    private Executor executorOrInline() {
+        return asyncExecutor != null ? asyncExecutor : Runnable::run;
+    }
+
+    // Only removes documents that are still expired, so a value another caller has just
+    // re-put under the same key isn't deleted by a reader that saw the old one
+    private void deleteExpired(Bson idFilter, long now) {
+        collection.deleteMany(Filters.and(idFilter, Filters.lt("expirationTime", now)));
+    }
+
+    private Object readValue(Document doc) {
+        Object value = doc.get("value");
+        if (codec == null) return value;
+        if (value instanceof Binary binary) return codec.decode(binary.getData());
+        if (value instanceof byte[] bytes) return codec.decode(bytes);
+        return value; // written before the codec was enabled
+    }
+
+    private Document toDocument(String key, Object value, long ttl, long now) {
+        // Saturate so put(key, value) with Long.MAX_VALUE doesn't overflow into the past
+        long expirationTime = ttl >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttl;
+        Document doc = new Document("_id", key)
+            .append("value", codec != null ? new Binary(codec.encode(value)) : value)
+            .append("expirationTime", expirationTime)
+            .append("updatedAt", now); // lets CacheInvalidationListener poll standalone mongod
+        if (nodeId != null) {
+            doc.append("writtenBy", nodeId);
+        }
+        return doc;
+    }
 }
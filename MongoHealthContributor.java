@@ -0,0 +1,32 @@
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+public class MongoHealthContributor implements HealthContributor {
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoHealthContributor(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public String name() {
+        return "mongodb";
+    }
+
+    @Override
+    public Map<String, Object> check() {
+        MongoDatabase db = mongoTemplate.getDb();
+        // Simple MongoDB ping command
+        db.runCommand(new Document("ping", 1));
+        Map<String, Object> details = new HashMap<>();
+        details.put("server", db.getName());
+        return details;
+    }
+}
@@ -0,0 +1,330 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-tier cache: a bounded in-process LRU tier in front of a backing {@link Cache}
+ * (usually {@link MongoDBCache}). Reads fall through to the backing cache on a miss,
+ * writes go to both tiers.
+ * <p>
+ * A value read through is only kept if no invalidation reached its segment while it was
+ * being loaded, so a load that started before a remote change can't re-populate the
+ * stale value afterwards. It is kept for the local ttl at most, and never past the backing
+ * entry's own expiry.
+ */
+public class NearCache implements Cache, LocalCacheTier {
+    private static final int SEGMENTS = 16; // power of two, spreads lock contention
+
+    private final Cache backing;
+    private final long maxLocalTtlMillis;
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param backing           cache to read through / write through to
+     * @param maxEntries        upper bound on entries held in process
+     * @param maxLocalTtlMillis upper bound on how long a value is held in process, also
+     *                          for values loaded from the backing cache that expire later
+     */
+    public NearCache(Cache backing, int maxEntries, long maxLocalTtlMillis) {
+        if (maxEntries < SEGMENTS) {
+            throw new IllegalArgumentException("maxEntries must be at least " + SEGMENTS);
+        }
+        this.backing = backing;
+        this.maxLocalTtlMillis = maxLocalTtlMillis;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(i, maxEntries / SEGMENTS);
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        long now = System.currentTimeMillis();
+        Object value = segmentFor(key).get(key, now);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+
+        misses.increment();
+        Segment segment = segmentFor(key);
+        long generation = segment.generation();
+        ExpiringValue loaded = backing.getWithExpiry(key);
+        if (loaded == null) return null;
+        segment.putIfUnchanged(key, loaded.value(), localExpiry(now, loaded), generation);
+        return loaded.value();
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    @Override
+    public void put(String key, Object value, long ttl) {
+        backing.put(key, value, ttl);
+        long now = System.currentTimeMillis();
+        segmentFor(key).put(key, value, expiresAt(now, Math.min(ttl, maxLocalTtlMillis)));
+    }
+
+    @Override
+    public void delete(String key) {
+        segmentFor(key).remove(key);
+        backing.delete(key);
+    }
+
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> result = new HashMap<>();
+        List<String> missing = collectLocal(keys, now, result);
+        if (!missing.isEmpty()) {
+            long[] generations = generations();
+            result.putAll(loadAndKeep(backing.getAllWithExpiry(missing), now, generations));
+        }
+        return result;
+    }
+
+    @Override
+    public void putAll(Map<String, ?> entries, long ttl) {
+        backing.putAll(entries, ttl);
+        keepAll(entries, ttl);
+    }
+
+    @Override
+    public void deleteAll(Collection<String> keys) {
+        keys.forEach(this::invalidate);
+        backing.deleteAll(keys);
+    }
+
+    // A local hit completes inline; only a miss waits on the backing cache
+    @Override
+    public CompletableFuture<Object> getAsync(String key) {
+        long now = System.currentTimeMillis();
+        Segment segment = segmentFor(key);
+        Object value = segment.get(key, now);
+        if (value != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(value);
+        }
+
+        misses.increment();
+        long generation = segment.generation();
+        return backing.getWithExpiryAsync(key).thenApply(loaded -> {
+            if (loaded == null) return null;
+            segment.putIfUnchanged(key, loaded.value(), localExpiry(now, loaded), generation);
+            return loaded.value();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> getAllAsync(Collection<String> keys) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> result = new HashMap<>();
+        List<String> missing = collectLocal(keys, now, result);
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        long[] generations = generations();
+        return backing.getAllWithExpiryAsync(missing).thenApply(loaded -> {
+            result.putAll(loadAndKeep(loaded, now, generations));
+            return result;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> putAllAsync(Map<String, ?> entries, long ttl) {
+        return backing.putAllAsync(entries, ttl).thenRun(() -> keepAll(entries, ttl));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAllAsync(Collection<String> keys) {
+        keys.forEach(this::invalidate);
+        return backing.deleteAllAsync(keys);
+    }
+
+    // Copies local hits into result and returns the keys that have to come from the backing cache
+    private List<String> collectLocal(Collection<String> keys, long now, Map<String, Object> result) {
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            Object value = segmentFor(key).get(key, now);
+            if (value != null) {
+                hits.increment();
+                result.put(key, value);
+            } else {
+                misses.increment();
+                missing.add(key);
+            }
+        }
+        return missing;
+    }
+
+    private Map<String, Object> loadAndKeep(Map<String, ExpiringValue> loaded, long now, long[] generations) {
+        Map<String, Object> values = new HashMap<>();
+        loaded.forEach((key, found) -> {
+            Segment segment = segmentFor(key);
+            segment.putIfUnchanged(key, found.value(), localExpiry(now, found), generations[segment.index]);
+            values.put(key, found.value());
+        });
+        return values;
+    }
+
+    // A value read through expires locally no later than it does in the backing cache
+    private long localExpiry(long now, ExpiringValue loaded) {
+        return Math.min(loaded.expiresAt(), expiresAt(now, maxLocalTtlMillis));
+    }
+
+    // Taken before a load from the backing cache; see Segment.putIfUnchanged
+    private long[] generations() {
+        long[] generations = new long[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            generations[i] = segments[i].generation();
+        }
+        return generations;
+    }
+
+    private void keepAll(Map<String, ?> entries, long ttl) {
+        long expiresAt = expiresAt(System.currentTimeMillis(), Math.min(ttl, maxLocalTtlMillis));
+        entries.forEach((key, value) -> segmentFor(key).put(key, value, expiresAt));
+    }
+
+    @Override
+    public void invalidate(String key) {
+        segmentFor(key).remove(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public List<String> keys() {
+        List<String> keys = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.copyKeysTo(keys);
+        }
+        return keys;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    // Saturating add: put(key, value) passes Long.MAX_VALUE as the ttl
+    private static long expiresAt(long now, long ttl) {
+        return ttl >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttl;
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final class Segment {
+        final int index;
+        private final LinkedHashMap<String, Entry> map;
+        // Bumped by every invalidation in this segment
+        private long generation;
+
+        Segment(int index, int capacity) {
+            this.index = index;
+            // Access order gives LRU iteration; the eldest entry is dropped once over capacity
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Object get(String key, long now) {
+            Entry entry = map.get(key);
+            if (entry == null) return null;
+            if (entry.expiresAt <= now) {
+                map.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(String key, Object value, long expiresAt) {
+            map.put(key, new Entry(value, expiresAt));
+        }
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        // Skips the put if the segment saw an invalidation since the generation was read
+        synchronized void putIfUnchanged(String key, Object value, long expiresAt, long loadedAt) {
+            if (generation == loadedAt) {
+                map.put(key, new Entry(value, expiresAt));
+            }
+        }
+
+        synchronized void remove(String key) {
+            generation++;
+            map.remove(key);
+        }
+
+        synchronized void clear() {
+            generation++;
+            map.clear();
+        }
+
+        synchronized void copyKeysTo(List<String> keys) {
+            keys.addAll(map.keySet());
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+@ExtendWith(MockitoExtension.class)
+class NearCacheTest {
+
+    // Real default methods, so the expiry-aware reads fall back to the stubbed get/getAsync
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private Cache backing;
+
+    @Test
+    void shouldServeRepeatedReadsFromLocalTier() {
+        // Given
+        NearCache cache = new NearCache(backing, 100, 60_000);
+        when(backing.get("auction-1")).thenReturn("price-1");
+
+        // When
+        Object first = cache.get("auction-1");
+        Object second = cache.get("auction-1");
+
+        // Then
+        assertThat(first).isEqualTo("price-1");
+        assertThat(second).isEqualTo("price-1");
+        verify(backing, times(1)).get("auction-1");
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldWriteThroughAndHonorPutTtl() throws Exception {
+        // Given
+        NearCache cache = new NearCache(backing, 100, 60_000);
+
+        // When
+        cache.put("auction-2", "price-2", 1);
+        Thread.sleep(5);
+        cache.get("auction-2");
+
+        // Then
+        verify(backing).put("auction-2", "price-2", 1);
+        verify(backing).get("auction-2");
+        assertThat(cache.getExpirationCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictWhenOverCapacity() {
+        // Given
+        NearCache cache = new NearCache(backing, 16, 60_000);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            cache.put("auction-" + i, i);
+        }
+
+        // Then
+        assertThat(cache.size()).isLessThanOrEqualTo(16);
+        assertThat(cache.getEvictionCount()).isEqualTo(1000 - cache.size());
+    }
+
+    @Test
+    void shouldDeleteFromBothTiers() {
+        // Given
+        NearCache cache = new NearCache(backing, 100, 60_000);
+        cache.put("auction-3", "price-3");
+
+        // When
+        cache.delete("auction-3");
+        Object value = cache.get("auction-3");
+
+        // Then
+        assertThat(value).isNull();
+        verify(backing).delete("auction-3");
+        verify(backing).get("auction-3");
+    }
+
+    @Test
+    void shouldNotKeepValueLoadedBeforeConcurrentInvalidation() {
+        // Given - a remote change is invalidated while the read-through is in flight
+        NearCache cache = new NearCache(backing, 100, 60_000);
+        when(backing.get("auction-4")).thenAnswer(invocation -> {
+            cache.invalidate("auction-4");
+            return "stale-price";
+        }).thenReturn("fresh-price");
+
+        // When
+        Object first = cache.get("auction-4");
+        Object second = cache.get("auction-4");
+
+        // Then
+        assertThat(first).isEqualTo("stale-price");
+        assertThat(second).isEqualTo("fresh-price");
+        verify(backing, times(2)).get("auction-4");
+    }
+
+    @Test
+    void shouldCompleteAsyncLocalHitInlineAndLoadMissFromBackingAsync() {
+        // Given
+        NearCache cache = new NearCache(backing, 100, 60_000);
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        when(backing.getAsync("auction-1")).thenReturn(load);
+
+        // When
+        CompletableFuture<Object> miss = cache.getAsync("auction-1");
+        load.complete("price-1");
+        CompletableFuture<Object> hit = cache.getAsync("auction-1");
+
+        // Then
+        assertThat(miss).isCompletedWithValue("price-1");
+        assertThat(hit).isCompletedWithValue("price-1");
+        verify(backing, times(1)).getAsync("auction-1");
+        verify(backing, never()).get(anyString());
+    }
+
+    @Test
+    void shouldNotKeepAsyncValueLoadedBeforeConcurrentInvalidation() {
+        // Given
+        NearCache cache = new NearCache(backing, 100, 60_000);
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        when(backing.getAsync("auction-1")).thenReturn(load);
+        CompletableFuture<Object> stale = cache.getAsync("auction-1");
+
+        // When - the invalidation lands while the read is in flight
+        cache.invalidate("auction-1");
+        load.complete("price-old");
+
+        // Then
+        assertThat(stale).isCompletedWithValue("price-old");
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldNotKeepLoadedValuePastBackingExpiry() throws Exception {
+        // Given - the backing entry expires long before the local ttl would
+        NearCache cache = new NearCache(backing, 100, 60_000);
+        when(backing.getWithExpiry("auction-5"))
+            .thenReturn(new Cache.ExpiringValue("price-5", System.currentTimeMillis() + 20))
+            .thenReturn(null);
+
+        // When
+        Object first = cache.get("auction-5");
+        Thread.sleep(50);
+        Object second = cache.get("auction-5");
+
+        // Then - the second read goes back to the backing cache and finds it expired
+        assertThat(first).isEqualTo("price-5");
+        assertThat(second).isNull();
+        verify(backing, times(2)).getWithExpiry("auction-5");
+    }
+}
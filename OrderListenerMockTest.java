@@ -7,6 +7,9 @@ class OrderListenerMockTest {
     @Mock
     private KafkaTemplate<String, String> kafkaTemplate;
 
+    @Mock
+    private HotPathMetrics metrics;
+
     @InjectMocks
     private OrderListener orderListener;
 
@@ -0,0 +1,257 @@
+package com.example.steps;
+
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load scenarios for the order pipeline on the embedded broker set up by
+ * {@link KafkaListenersSteps} (which owns the Spring test context). Orders are sent
+ * open-loop at a fixed rate, so a slow pipeline shows up as latency instead of a slower
+ * sender, and end-to-end latency is measured from send to arrival in orders-success-topic
+ * or orders-topic.DLT.
+ *
+ * <p>Order counts can be scaled down for quick runs with -Dload.scale=0.1; budgets are
+ * not scaled.
+ */
+public class OrderLoadSteps {
+
+    private static final String SUCCESS_TOPIC = "orders-success-topic";
+    private static final String DLT_TOPIC = "orders-topic.DLT";
+
+    @Autowired
+    private KafkaTemplate<String, Order> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    private final Random random = new Random(42);
+    private int keyCount = 1;
+    private double hotKeyShare;
+    private double invalidShare;
+
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private String sendTopic;
+    private int expectedValid;
+    private int expectedInvalid;
+    private long firstSendNanos;
+    // orderId -> send time; "partition:offset" -> orderId for matching DLT records
+    private final Map<String, Long> sentAt = new ConcurrentHashMap<>();
+    private final Map<String, String> orderIdByOffset = new ConcurrentHashMap<>();
+    private final AtomicLong sendFailures = new AtomicLong();
+    // orderId (success) or "partition:offset" (DLT) -> arrival time
+    private final Map<String, Long> successArrivals = new ConcurrentHashMap<>();
+    private final Map<String, Long> dltArrivals = new ConcurrentHashMap<>();
+
+    private final List<Thread> pollers = new ArrayList<>();
+    private volatile boolean polling;
+
+    @After
+    public void stopPollers() throws InterruptedException {
+        polling = false;
+        for (Thread poller : pollers) {
+            poller.join(5_000);
+        }
+        pollers.clear();
+    }
+
+    @Given("order keys are drawn from {int} keys with {double} of traffic on the hottest key")
+    public void configureKeySkew(int keys, double hottestShare) {
+        keyCount = keys;
+        hotKeyShare = hottestShare;
+    }
+
+    @Given("{int}% of orders are invalid")
+    public void configureInvalidShare(int percent) {
+        invalidShare = percent / 100.0;
+    }
+
+    @When("{int} orders are sent to {string} at {int}\\/s")
+    public void sendOrders(int orders, String topic, int ratePerSecond) {
+        int total = Math.max(1, (int) (orders * Double.parseDouble(System.getProperty("load.scale", "1"))));
+        sendTopic = topic;
+        startPollers();
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        firstSendNanos = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            // Open loop: each send has a slot in the schedule, independent of how earlier ones went
+            long due = firstSendNanos + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            boolean invalid = random.nextDouble() < invalidShare;
+            String orderId = "load-" + runId + "-" + i;
+            Order order = new Order(orderId, invalid ? -(1 + random.nextInt(100)) : 1 + random.nextInt(500));
+            if (invalid) expectedInvalid++; else expectedValid++;
+
+            // Measured from the scheduled slot, so a sender held up by a slow pipeline still counts the wait
+            sentAt.put(orderId, due);
+            kafkaTemplate.send(topic, nextKey(), order).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    sendFailures.incrementAndGet();
+                    return;
+                }
+                orderIdByOffset.put(result.getRecordMetadata().partition() + ":" + result.getRecordMetadata().offset(), orderId);
+            });
+        }
+        kafkaTemplate.flush();
+    }
+
+    @Then("all orders should be delivered within {int} seconds")
+    public void verifyAllDelivered(int seconds) {
+        await().atMost(seconds, SECONDS).pollInterval(Duration.ofMillis(200)).untilAsserted(() -> {
+            assertEquals(0, sendFailures.get(), "failed sends");
+            assertEquals(expectedValid, successArrivals.size(), "orders in " + SUCCESS_TOPIC);
+            assertEquals(expectedInvalid, arrivals(DLT_TOPIC).size(), "orders in " + DLT_TOPIC);
+        });
+    }
+
+    @Then("the {word} latency into {string} should be at most {long} ms")
+    public void verifyLatency(String percentile, String topic, long budgetMs) {
+        long[] latencies = latencies(topic);
+        assertTrue(latencies.length > 0, "no orders arrived in " + topic);
+        double p = switch (percentile) {
+            case "p50" -> 50;
+            case "p99" -> 99;
+            case "p999" -> 99.9;
+            default -> throw new IllegalArgumentException("Unknown percentile " + percentile);
+        };
+        Arrays.sort(latencies);
+        int index = Math.max(0, (int) Math.ceil(latencies.length * p / 100) - 1);
+        long actualMs = TimeUnit.NANOSECONDS.toMillis(latencies[index]);
+        assertTrue(actualMs <= budgetMs,
+            percentile + " latency into " + topic + " was " + actualMs + " ms, budget " + budgetMs + " ms");
+    }
+
+    @Then("the throughput into {string} should be at least {int} orders per second")
+    public void verifyThroughput(String topic, int minPerSecond) {
+        Map<String, Long> arrivals = arrivals(topic);
+        assertTrue(!arrivals.isEmpty(), "no orders arrived in " + topic);
+        long last = arrivals.values().stream().mapToLong(Long::longValue).max().getAsLong();
+        double perSecond = arrivals.size() / ((last - firstSendNanos) / 1e9);
+        assertTrue(perSecond >= minPerSecond,
+            "throughput into " + topic + " was " + (long) perSecond + "/s, budget " + minPerSecond + "/s");
+    }
+
+    private String nextKey() {
+        if (keyCount <= 1 || random.nextDouble() < hotKeyShare) {
+            return "key-0";
+        }
+        return "key-" + (1 + random.nextInt(keyCount - 1));
+    }
+
+    private long[] latencies(String topic) {
+        Map<String, Long> arrivals = arrivals(topic);
+        // DLT arrivals are keyed by the original offset; success arrivals by order id
+        Function<String, String> toOrderId = SUCCESS_TOPIC.equals(topic) ? id -> id : orderIdByOffset::get;
+        return arrivals.entrySet().stream()
+            .mapToLong(entry -> {
+                String orderId = toOrderId.apply(entry.getKey());
+                Long sent = orderId == null ? null : sentAt.get(orderId);
+                return sent == null ? -1 : entry.getValue() - sent;
+            })
+            .filter(latency -> latency >= 0)
+            .toArray();
+    }
+
+    // Other scenarios' dead letters can still be arriving, so only offsets this run sent count
+    private Map<String, Long> arrivals(String topic) {
+        if (SUCCESS_TOPIC.equals(topic)) return successArrivals;
+        if (DLT_TOPIC.equals(topic)) {
+            return dltArrivals.entrySet().stream()
+                .filter(entry -> orderIdByOffset.containsKey(entry.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+        throw new IllegalArgumentException("Not a measured topic: " + topic);
+    }
+
+    private void startPollers() {
+        polling = true;
+        String prefix = "load-" + runId + "-";
+
+        // Only records produced from now on; earlier scenarios leave orders in both topics
+        Map<String, Object> successConfig = KafkaTestUtils.consumerProps("load-success-" + runId, "true", embeddedKafka);
+        successConfig.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        Consumer<String, Order> successConsumer = new DefaultKafkaConsumerFactory<>(
+            successConfig,
+            new StringDeserializer(),
+            new JsonDeserializer<>(Order.class)
+        ).createConsumer();
+        embeddedKafka.consumeFromAnEmbeddedTopic(successConsumer, SUCCESS_TOPIC);
+        startPoller("load-success-poller", successConsumer, record -> {
+            if (record.value() != null && record.value().orderId().startsWith(prefix)) {
+                successArrivals.putIfAbsent(record.value().orderId(), System.nanoTime());
+            }
+        });
+
+        Map<String, Object> dltConfig = KafkaTestUtils.consumerProps("load-dlt-" + runId, "true", embeddedKafka);
+        dltConfig.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        Consumer<String, String> dltConsumer = new DefaultKafkaConsumerFactory<>(
+            dltConfig,
+            new StringDeserializer(),
+            new StringDeserializer()
+        ).createConsumer();
+        embeddedKafka.consumeFromAnEmbeddedTopic(dltConsumer, DLT_TOPIC);
+        startPoller("load-dlt-poller", dltConsumer, record -> {
+            Header originalTopic = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+            Header partition = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_PARTITION);
+            Header offset = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET);
+            if (originalTopic != null && sendTopic.equals(new String(originalTopic.value(), StandardCharsets.UTF_8))
+                    && partition != null && offset != null) {
+                dltArrivals.putIfAbsent(ByteBuffer.wrap(partition.value()).getInt() + ":"
+                    + ByteBuffer.wrap(offset.value()).getLong(), System.nanoTime());
+            }
+        });
+    }
+
+    private <V> void startPoller(String name, Consumer<String, V> consumer,
+                                 java.util.function.Consumer<ConsumerRecord<String, V>> onRecord) {
+        Thread poller = new Thread(() -> {
+            try (consumer) {
+                while (polling) {
+                    for (ConsumerRecord<String, V> record : consumer.poll(Duration.ofMillis(50))) {
+                        onRecord.accept(record);
+                    }
+                }
+            }
+        }, name);
+        poller.setDaemon(true);
+        poller.start();
+        pollers.add(poller);
+    }
+}
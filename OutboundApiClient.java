@@ -0,0 +1,214 @@
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-blocking client for the partner APIs called from {@link ApiRequestService}.
+ * One shared HttpClient keeps a pool of keep-alive connections. Every endpoint gets:
+ * <ul>
+ *   <li>a bulkhead - at most maxConcurrent calls in flight, extra calls fail at once
+ *       instead of queueing behind a slow partner</li>
+ *   <li>a circuit breaker - after failureThreshold failures in a row calls fail fast for
+ *       openMillis, then a single trial call decides whether to close again</li>
+ *   <li>a latency histogram</li>
+ * </ul>
+ * Every failure surfaces as {@link OutboundApiException}, which the service records as the
+ * request's failure status.
+ */
+@Component
+public class OutboundApiClient {
+    private static final Logger logger = LoggerFactory.getLogger(OutboundApiClient.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final int maxConcurrent;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Map<String, EndpointState> endpoints = new ConcurrentHashMap<>();
+
+    public OutboundApiClient(@Value("${outbound.connect-timeout-ms:2000}") long connectTimeoutMs,
+                             @Value("${outbound.request-timeout-ms:5000}") long requestTimeoutMs,
+                             @Value("${outbound.max-concurrent-per-endpoint:50}") int maxConcurrent,
+                             @Value("${outbound.circuit.failure-threshold:5}") int failureThreshold,
+                             @Value("${outbound.circuit.open-ms:30000}") long openMillis) {
+        this.httpClient = HttpClient.newBuilder()
+            // HTTP/1.1 so plain-http partners aren't sent h2c upgrade requests
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .build();
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.maxConcurrent = maxConcurrent;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * POSTs the payload as JSON. The future fails with {@link OutboundApiException} on
+     * rejection, timeout, I/O error or a non-2xx response.
+     */
+    public CompletableFuture<HttpResponse<String>> postAsync(String endpoint, Object payload) {
+        EndpointState state = endpoints.computeIfAbsent(endpoint, EndpointState::new);
+
+        if (!state.circuit.allowRequest()) {
+            state.rejected.increment();
+            return CompletableFuture.failedFuture(
+                new OutboundApiException(OutboundApiException.Reason.CIRCUIT_OPEN, endpoint, "circuit open"));
+        }
+        if (!state.bulkhead.tryAcquire()) {
+            state.circuit.release();
+            state.rejected.increment();
+            return CompletableFuture.failedFuture(new OutboundApiException(
+                OutboundApiException.Reason.BULKHEAD_FULL, endpoint, maxConcurrent + " calls already in flight"));
+        }
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(endpoint))
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(payload)))
+                .build();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            state.bulkhead.release();
+            state.circuit.release();
+            return CompletableFuture.failedFuture(
+                new OutboundApiException(OutboundApiException.Reason.BAD_REQUEST, endpoint, e.getMessage(), e));
+        }
+
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .handle((response, error) -> {
+                state.bulkhead.release();
+                state.latency.recordSince(start);
+                OutboundApiException failure = classify(endpoint, response, error);
+                // 4xx means our request was bad, not that the partner is unhealthy
+                state.circuit.record(failure == null || failure.getReason() == OutboundApiException.Reason.CLIENT_ERROR);
+                if (failure != null) {
+                    state.failed.increment();
+                    throw failure;
+                }
+                return response;
+            });
+    }
+
+    /**
+     * Blocking variant for callers already on a blocking-work thread; bounded by the
+     * request timeout.
+     */
+    public HttpResponse<String> post(String endpoint, Object payload) {
+        try {
+            return postAsync(endpoint, payload).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof OutboundApiException outbound) throw outbound;
+            throw e;
+        }
+    }
+
+    private static OutboundApiException classify(String endpoint, HttpResponse<String> response, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpTimeoutException) {
+            return new OutboundApiException(OutboundApiException.Reason.TIMEOUT, endpoint, cause.getMessage(), cause);
+        }
+        if (cause != null) {
+            return new OutboundApiException(OutboundApiException.Reason.IO, endpoint, String.valueOf(cause.getMessage()), cause);
+        }
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) return null;
+        OutboundApiException.Reason reason = status < 500
+            ? OutboundApiException.Reason.CLIENT_ERROR
+            : OutboundApiException.Reason.SERVER_ERROR;
+        return new OutboundApiException(reason, endpoint, "HTTP " + status);
+    }
+
+    public LatencyHistogram getLatency(String endpoint) {
+        EndpointState state = endpoints.get(endpoint);
+        return state == null ? new LatencyHistogram() : state.latency;
+    }
+
+    public long getRejectedCount(String endpoint) {
+        EndpointState state = endpoints.get(endpoint);
+        return state == null ? 0 : state.rejected.sum();
+    }
+
+    public long getFailedCount(String endpoint) {
+        EndpointState state = endpoints.get(endpoint);
+        return state == null ? 0 : state.failed.sum();
+    }
+
+    public boolean isCircuitOpen(String endpoint) {
+        EndpointState state = endpoints.get(endpoint);
+        return state != null && state.circuit.isOpen();
+    }
+
+    private final class EndpointState {
+        final Semaphore bulkhead = new Semaphore(maxConcurrent);
+        final CircuitBreaker circuit;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        EndpointState(String endpoint) {
+            this.circuit = new CircuitBreaker(endpoint);
+        }
+    }
+
+    private final class CircuitBreaker {
+        private final String endpoint;
+        private int consecutiveFailures;
+        private long openUntil;
+        private boolean trialInFlight;
+
+        CircuitBreaker(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        synchronized boolean allowRequest() {
+            if (consecutiveFailures < failureThreshold) return true;
+            // Open: after the cool-down let exactly one trial call through
+            if (System.currentTimeMillis() < openUntil || trialInFlight) return false;
+            trialInFlight = true;
+            return true;
+        }
+
+        // Gives back a trial slot that never made a call
+        synchronized void release() {
+            trialInFlight = false;
+        }
+
+        synchronized void record(boolean success) {
+            trialInFlight = false;
+            if (success) {
+                consecutiveFailures = 0;
+                return;
+            }
+            if (++consecutiveFailures >= failureThreshold) {
+                if (System.currentTimeMillis() >= openUntil) {
+                    logger.warn("Circuit for {} opened after {} failures in a row, failing fast for {} ms",
+                        endpoint, consecutiveFailures, openMillis);
+                }
+                openUntil = System.currentTimeMillis() + openMillis;
+            }
+        }
+
+        synchronized boolean isOpen() {
+            return consecutiveFailures >= failureThreshold && System.currentTimeMillis() < openUntil;
+        }
+    }
+}
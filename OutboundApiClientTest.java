@@ -0,0 +1,96 @@
+class OutboundApiClientTest {
+
+    private HttpServer server;
+    private final AtomicInteger statusToReturn = new AtomicInteger(200);
+    private final AtomicLong delayMillis = new AtomicLong();
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/partner", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(delayMillis.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(statusToReturn.get(), -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldPostJsonAndRecordLatency() {
+        // Given
+        OutboundApiClient client = new OutboundApiClient(1000, 2000, 10, 5, 30_000);
+        String endpoint = endpoint();
+
+        // When
+        HttpResponse<String> response = client.post(endpoint, Map.of("orderId", "order-1"));
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(client.getLatency(endpoint).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFailFastOnceCircuitOpens() {
+        // Given
+        statusToReturn.set(503);
+        OutboundApiClient client = new OutboundApiClient(1000, 2000, 10, 3, 30_000);
+        String endpoint = endpoint();
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.post(endpoint, Map.of("attempt", 1)))
+                .isInstanceOf(OutboundApiException.class);
+        }
+
+        // When
+        Throwable rejected = catchThrowable(() -> client.post(endpoint, Map.of("attempt", 2)));
+
+        // Then
+        assertThat(client.isCircuitOpen(endpoint)).isTrue();
+        assertThat(((OutboundApiException) rejected).getReason()).isEqualTo(OutboundApiException.Reason.CIRCUIT_OPEN);
+        assertThat(client.getLatency(endpoint).getCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldRejectCallsBeyondBulkheadLimit() {
+        // Given
+        delayMillis.set(500);
+        OutboundApiClient client = new OutboundApiClient(1000, 2000, 1, 5, 30_000);
+        String endpoint = endpoint();
+        CompletableFuture<HttpResponse<String>> slowCall = client.postAsync(endpoint, Map.of("call", 1));
+
+        // When
+        CompletableFuture<HttpResponse<String>> secondCall = client.postAsync(endpoint, Map.of("call", 2));
+
+        // Then
+        assertThat(secondCall).isCompletedExceptionally();
+        assertThat(client.getRejectedCount(endpoint)).isEqualTo(1);
+        assertThat(slowCall.join().statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void shouldTimeOutSlowPartner() {
+        // Given
+        delayMillis.set(1000);
+        OutboundApiClient client = new OutboundApiClient(1000, 100, 10, 5, 30_000);
+
+        // When
+        Throwable error = catchThrowable(() -> client.post(endpoint(), Map.of("call", 1)));
+
+        // Then
+        assertThat(((OutboundApiException) error).getReason()).isEqualTo(OutboundApiException.Reason.TIMEOUT);
+    }
+
+    private String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/partner";
+    }
+}
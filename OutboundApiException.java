@@ -0,0 +1,29 @@
+/**
+ * A partner API call that did not succeed, with the reason so callers and metrics can tell
+ * a fast-fail rejection from a real failed call.
+ */
+public class OutboundApiException extends RuntimeException {
+
+    public enum Reason { CIRCUIT_OPEN, BULKHEAD_FULL, BAD_REQUEST, TIMEOUT, IO, CLIENT_ERROR, SERVER_ERROR }
+
+    private final Reason reason;
+    private final String endpoint;
+
+    public OutboundApiException(Reason reason, String endpoint, String message) {
+        this(reason, endpoint, message, null);
+    }
+
+    public OutboundApiException(Reason reason, String endpoint, String message, Throwable cause) {
+        super(reason + " calling " + endpoint + ": " + message, cause);
+        this.reason = reason;
+        this.endpoint = endpoint;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,279 @@
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records fetched prices into a per-instrument ring of primitives and logs aggregates from
+ * a background flusher, instead of one line per price. {@link #record} boxes nothing and
+ * allocates nothing once the instrument has been seen.
+ *
+ * <p>Every interval, per instrument with new prices: count, min, max, last, and p50/p99/max
+ * of the absolute change between consecutive prices. If writers lap the flusher, the
+ * overwritten prices are counted as dropped. An instrument with no prices for
+ * {@value #IDLE_FLUSHES_BEFORE_EVICT} flushes in a row is forgotten; a price recorded just
+ * as its instrument is evicted may be lost. At most maxInstruments are tracked at once;
+ * prices for any further instrument are only counted, and that count is logged with the
+ * next flush. The detail level comes from PRICE_LOG_LEVEL:
+ * <ul>
+ *   <li>OFF - nothing is recorded</li>
+ *   <li>INFO (default) - aggregates at info</li>
+ *   <li>DEBUG - aggregates plus up to sampleLines raw prices per instrument at debug</li>
+ *   <li>TRACE - aggregates plus every raw price still in the ring at trace</li>
+ * </ul>
+ */
+public class PriceTelemetry implements AutoCloseable {
+    private static final Logger priceLogger = LoggerFactory.getLogger("PriceLogger");
+    static final int IDLE_FLUSHES_BEFORE_EVICT = 6;
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 10_000;
+    private static final int DEFAULT_EXPECTED_RATE = 5;           // prices per second per instrument
+    private static final int DEFAULT_MAX_INSTRUMENTS = 10_000;
+
+    public enum Detail { OFF, INFO, DEBUG, TRACE }
+
+    public record Aggregate(String instrument, long count, double min, double max, double last,
+                            double deltaP50, double deltaP99, double deltaMax, long dropped) {
+    }
+
+    private final Detail detail;
+    private final int capacity;
+    private final int sampleLines;
+    private final long flushIntervalMs;
+    private final int maxInstruments;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+    private final LongAdder untracked = new LongAdder();
+    private ScheduledExecutorService flusher;
+
+    // Flusher-thread scratch for the interval's prices and deltas
+    private final double[] prices;
+    private final double[] deltas;
+
+    public PriceTelemetry(Detail detail, int capacity, int sampleLines, long flushIntervalMs) {
+        this(detail, capacity, sampleLines, flushIntervalMs, DEFAULT_MAX_INSTRUMENTS);
+    }
+
+    /**
+     * @param capacity       prices kept per instrument between flushes, rounded up to a power of two;
+     *                       each instrument holds 16 bytes per slot
+     * @param maxInstruments instruments tracked at once, which bounds the heap the rings take
+     */
+    public PriceTelemetry(Detail detail, int capacity, int sampleLines, long flushIntervalMs, int maxInstruments) {
+        this.detail = detail;
+        this.capacity = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.sampleLines = sampleLines;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxInstruments = maxInstruments;
+        this.prices = new double[this.capacity];
+        this.deltas = new double[this.capacity];
+    }
+
+    /**
+     * Detail from PRICE_LOG_LEVEL; an unset or unknown value means INFO. The ring holds
+     * PRICE_LOG_CAPACITY prices per instrument, by default one flush interval's worth at
+     * PRICE_LOG_EXPECTED_RATE prices per second per instrument (5 if unset), so nothing is
+     * dropped below that rate. PRICE_LOG_MAX_INSTRUMENTS (10000 if unset) caps how many
+     * instruments are tracked; at the defaults the rings take at most about 10 MB.
+     */
+    public static PriceTelemetry fromEnvironment() {
+        Detail detail = Detail.INFO;
+        String level = System.getenv("PRICE_LOG_LEVEL");
+        if (level != null) {
+            try {
+                detail = Detail.valueOf(level.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                priceLogger.warn("Unknown PRICE_LOG_LEVEL {}, using INFO", level);
+            }
+        }
+        int expectedRate = intFromEnvironment("PRICE_LOG_EXPECTED_RATE", DEFAULT_EXPECTED_RATE);
+        int capacity = intFromEnvironment("PRICE_LOG_CAPACITY",
+            (int) Math.min(1 << 24, expectedRate * DEFAULT_FLUSH_INTERVAL_MS / 1000));
+        int maxInstruments = intFromEnvironment("PRICE_LOG_MAX_INSTRUMENTS", DEFAULT_MAX_INSTRUMENTS);
+        return new PriceTelemetry(detail, capacity, 5, DEFAULT_FLUSH_INTERVAL_MS, maxInstruments);
+    }
+
+    private static int intFromEnvironment(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            priceLogger.warn("Unknown {} {}, using {}", name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public synchronized PriceTelemetry start() {
+        if (flusher == null && detail != Detail.OFF) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "price-telemetry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleAtFixedRate(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    public void record(String instrument, double price) {
+        if (detail == Detail.OFF) {
+            return;
+        }
+        Ring ring = rings.get(instrument);
+        if (ring == null) {
+            // Only checked for unseen instruments; racing writers may overshoot by a few
+            if (rings.size() >= maxInstruments) {
+                untracked.increment();
+                return;
+            }
+            ring = rings.computeIfAbsent(instrument, key -> new Ring(capacity));
+        }
+        ring.add(price);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Keep the schedule alive
+            priceLogger.warn("Price telemetry flush failed", e);
+        }
+    }
+
+    /**
+     * Drains what was recorded since the last flush and logs it. Called by the flusher; only
+     * one flush may run at a time.
+     */
+    synchronized List<Aggregate> flush() {
+        List<Aggregate> aggregates = new ArrayList<>();
+        for (Map.Entry<String, Ring> entry : rings.entrySet()) {
+            Ring ring = entry.getValue();
+            Aggregate aggregate = drain(entry.getKey(), ring);
+            if (aggregate != null) {
+                aggregates.add(aggregate);
+                ring.idleFlushes = 0;
+            } else if (++ring.idleFlushes >= IDLE_FLUSHES_BEFORE_EVICT) {
+                rings.remove(entry.getKey(), ring);
+            }
+        }
+        long skipped = untracked.sumThenReset();
+        if (skipped > 0) {
+            priceLogger.warn("{} prices not recorded, already tracking the limit of {} instruments",
+                skipped, maxInstruments);
+        }
+        return aggregates;
+    }
+
+    private Aggregate drain(String instrument, Ring ring) {
+        long end = ring.sequence.get();
+        long start = Math.max(ring.flushed, end - capacity);
+        long dropped = start - ring.flushed;
+        int count = 0;
+        for (long seq = start; seq < end; seq++) {
+            // A slot whose stamp doesn't match, before and after the read, was overwritten
+            // or is still being written
+            int slot = (int) (seq & (capacity - 1));
+            long before = ring.stamps.get(slot);
+            long bits = ring.values.get(slot);
+            if (before == seq + 1 && ring.stamps.get(slot) == before) {
+                prices[count++] = Double.longBitsToDouble(bits);
+            } else {
+                dropped++;
+            }
+        }
+        ring.flushed = end;
+        if (count == 0) {
+            return null;
+        }
+
+        double min = prices[0];
+        double max = prices[0];
+        double previous = Double.isNaN(ring.lastFlushed) ? prices[0] : ring.lastFlushed;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, prices[i]);
+            max = Math.max(max, prices[i]);
+            deltas[i] = Math.abs(prices[i] - previous);
+            previous = prices[i];
+        }
+        Arrays.sort(deltas, 0, count);
+        Aggregate aggregate = new Aggregate(instrument, count, min, max, prices[count - 1],
+            deltas[(count - 1) / 2], deltas[(int) Math.ceil(count * 0.99) - 1], deltas[count - 1], dropped);
+        ring.lastFlushed = prices[count - 1];
+
+        priceLogger.info("Prices {}: count={} min={} max={} last={} delta p50={} p99={} max={} dropped={}",
+            instrument, aggregate.count(), min, max, aggregate.last(),
+            aggregate.deltaP50(), aggregate.deltaP99(), aggregate.deltaMax(), dropped);
+        if (detail == Detail.TRACE) {
+            for (int i = 0; i < count; i++) {
+                priceLogger.trace("Fetched external price {}: {}", instrument, prices[i]);
+            }
+        } else if (detail == Detail.DEBUG && sampleLines > 0) {
+            // Evenly spaced, always including the last price
+            int step = Math.max(1, count / sampleLines);
+            for (int i = count - 1, lines = 0; i >= 0 && lines < sampleLines; i -= step, lines++) {
+                priceLogger.debug("Fetched external price {}: {}", instrument, prices[i]);
+            }
+        }
+        return aggregate;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int instrumentCount() {
+        return rings.size();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (flusher != null) {
+                flusher.shutdown();
+            }
+        }
+        if (detail != Detail.OFF) {
+            flushQuietly();
+        }
+    }
+
+    /**
+     * Multi-writer ring: a writer claims a sequence, marks the slot busy, stores the value,
+     * then stamps the slot with sequence + 1 so the flusher only reads completed slots.
+     */
+    private static final class Ring {
+        final AtomicLong sequence = new AtomicLong();
+        final AtomicLongArray values;
+        final AtomicLongArray stamps;
+        final int mask;
+        // Flusher-only state
+        long flushed;
+        double lastFlushed = Double.NaN;
+        int idleFlushes;
+
+        Ring(int capacity) {
+            this.values = new AtomicLongArray(capacity);
+            this.stamps = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+        }
+
+        void add(double price) {
+            long seq = sequence.getAndIncrement();
+            int slot = (int) (seq & mask);
+            stamps.set(slot, -(seq + 1));
+            values.set(slot, Double.doubleToRawLongBits(price));
+            stamps.set(slot, seq + 1);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+class PriceTelemetryTest {
+
+    @Test
+    void shouldAggregatePricesPerInstrument() {
+        // Given
+        PriceTelemetry telemetry = new PriceTelemetry(PriceTelemetry.Detail.INFO, 16, 0, 60_000);
+        telemetry.record("AAPL", 100.0);
+        telemetry.record("AAPL", 101.0);
+        telemetry.record("AAPL", 99.0);
+        telemetry.record("MSFT", 300.0);
+
+        // When
+        List<PriceTelemetry.Aggregate> aggregates = telemetry.flush();
+
+        // Then
+        assertThat(aggregates).hasSize(2);
+        PriceTelemetry.Aggregate aapl = aggregates.stream()
+            .filter(a -> a.instrument().equals("AAPL")).findFirst().orElseThrow();
+        assertThat(aapl.count()).isEqualTo(3);
+        assertThat(aapl.min()).isEqualTo(99.0);
+        assertThat(aapl.max()).isEqualTo(101.0);
+        assertThat(aapl.last()).isEqualTo(99.0);
+        assertThat(aapl.deltaMax()).isEqualTo(2.0);
+        assertThat(aapl.dropped()).isZero();
+    }
+
+    @Test
+    void shouldOnlyReportPricesSinceLastFlush() {
+        // Given
+        PriceTelemetry telemetry = new PriceTelemetry(PriceTelemetry.Detail.INFO, 16, 0, 60_000);
+        telemetry.record("AAPL", 100.0);
+        telemetry.flush();
+        telemetry.record("AAPL", 104.0);
+
+        // When
+        List<PriceTelemetry.Aggregate> aggregates = telemetry.flush();
+
+        // Then - delta is measured from the last price of the previous interval
+        assertThat(aggregates).singleElement().satisfies(a -> {
+            assertThat(a.count()).isEqualTo(1);
+            assertThat(a.deltaMax()).isEqualTo(4.0);
+        });
+        assertThat(telemetry.flush()).isEmpty();
+    }
+
+    @Test
+    void shouldCountPricesOverwrittenBeforeFlushAsDropped() {
+        // Given
+        PriceTelemetry telemetry = new PriceTelemetry(PriceTelemetry.Detail.INFO, 8, 0, 60_000);
+        for (int i = 0; i < 20; i++) {
+            telemetry.record("AAPL", i);
+        }
+
+        // When
+        List<PriceTelemetry.Aggregate> aggregates = telemetry.flush();
+
+        // Then
+        assertThat(aggregates).singleElement().satisfies(a -> {
+            assertThat(a.count()).isEqualTo(8);
+            assertThat(a.dropped()).isEqualTo(12);
+            assertThat(a.min()).isEqualTo(12.0);
+            assertThat(a.last()).isEqualTo(19.0);
+        });
+    }
+
+    @Test
+    void shouldRecordNothingWhenOff() {
+        // Given
+        PriceTelemetry telemetry = new PriceTelemetry(PriceTelemetry.Detail.OFF, 8, 0, 60_000);
+
+        // When
+        telemetry.record("AAPL", 100.0);
+
+        // Then
+        assertThat(telemetry.flush()).isEmpty();
+    }
+
+    @Test
+    void shouldForgetInstrumentIdleForSeveralFlushes() {
+        // Given
+        PriceTelemetry telemetry = new PriceTelemetry(PriceTelemetry.Detail.INFO, 8, 0, 60_000);
+        telemetry.record("AAPL", 100.0);
+        telemetry.record("MSFT", 300.0);
+        telemetry.flush();
+
+        // When - MSFT keeps trading, AAPL goes quiet
+        for (int i = 0; i < PriceTelemetry.IDLE_FLUSHES_BEFORE_EVICT; i++) {
+            telemetry.record("MSFT", 300.0 + i);
+            telemetry.flush();
+        }
+
+        // Then
+        assertThat(telemetry.instrumentCount()).isEqualTo(1);
+        telemetry.record("AAPL", 101.0);
+        assertThat(telemetry.flush()).extracting(PriceTelemetry.Aggregate::instrument).containsExactly("AAPL");
+    }
+
+    @Test
+    void shouldRoundCapacityUpToPowerOfTwo() {
+        // When / Then - exact powers of two are kept as they are
+        assertThat(new PriceTelemetry(PriceTelemetry.Detail.INFO, 1, 0, 60_000).capacity()).isEqualTo(2);
+        assertThat(new PriceTelemetry(PriceTelemetry.Detail.INFO, 2, 0, 60_000).capacity()).isEqualTo(2);
+        assertThat(new PriceTelemetry(PriceTelemetry.Detail.INFO, 16, 0, 60_000).capacity()).isEqualTo(16);
+        assertThat(new PriceTelemetry(PriceTelemetry.Detail.INFO, 17, 0, 60_000).capacity()).isEqualTo(32);
+    }
+
+    @Test
+    void shouldStopTrackingNewInstrumentsAtLimit() {
+        // Given
+        PriceTelemetry telemetry = new PriceTelemetry(PriceTelemetry.Detail.INFO, 8, 0, 60_000, 2);
+        telemetry.record("AAPL", 100.0);
+        telemetry.record("MSFT", 300.0);
+
+        // When
+        telemetry.record("GOOG", 150.0);
+        telemetry.record("AAPL", 101.0);
+
+        // Then - instruments already tracked carry on
+        assertThat(telemetry.instrumentCount()).isEqualTo(2);
+        assertThat(telemetry.flush()).extracting(PriceTelemetry.Aggregate::instrument)
+            .containsExactlyInAnyOrder("AAPL", "MSFT");
+    }
+}
@@ -0,0 +1,91 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ApiRequestService#generateRequestId} on order-shaped params: a customer, a few
+ * line items with nested attributes, amounts as BigDecimal and a timestamp, in both hashing
+ * modes. Only the hasher is exercised; the service's other dependencies are left null.
+ * generateRequestIdPerCallAllocation is the baseline without the hasher's sink pool, i.e.
+ * what every call costs when it can't reuse a digest and buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestIdBenchmark {
+
+    @Param({"COMPAT", "CANONICAL"})
+    public CanonicalRequestHasher.Mode mode;
+
+    @Param({"3", "20"})
+    public int lineItems;
+
+    private ApiRequestService service;
+    private CanonicalRequestHasher perCallHasher;
+    private Map<String, Object> params;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new ApiRequestService(null, null, null, null, null, null,
+            true, mode, false, 120_000, new HotPathMetrics());
+        perCallHasher = new CanonicalRequestHasher(new ObjectMapper(), mode, 0);
+
+        Map<String, Object> customer = new LinkedHashMap<>();
+        customer.put("id", "cust-10293");
+        customer.put("name", "Jürgen Müller");
+        customer.put("tier", "gold");
+        customer.put("address", Map.of("city", "München", "zip", "80331", "country", "DE"));
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < lineItems; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("sku", "SKU-" + (1000 + i));
+            item.put("quantity", i % 5 + 1);
+            item.put("unitPrice", new BigDecimal("19.99").add(BigDecimal.valueOf(i)));
+            item.put("attributes", Map.of("color", "blue", "size", "M", "gift", i % 2 == 0));
+            items.add(item);
+        }
+
+        params = new HashMap<>();
+        params.put("orderId", "order-7f3a9c");
+        params.put("customer", customer);
+        params.put("items", items);
+        params.put("currency", "EUR");
+        params.put("total", new BigDecimal("1234.56"));
+        params.put("placedAt", new Date(1_700_000_000_000L));
+        params.put("note", null);
+    }
+
+    @Benchmark
+    public String generateRequestId() throws Exception {
+        return service.generateRequestId(params);
+    }
+
+    @Benchmark
+    public String generateRequestIdPerCallAllocation() throws Exception {
+        return perCallHasher.hash(params);
+    }
+}
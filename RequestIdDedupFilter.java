@@ -0,0 +1,248 @@
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process front for duplicate detection in {@link ApiRequestService}. Nearly every
+ * request is new, so instead of asking Mongo each time we keep a Bloom filter of every
+ * requestId in api_requests: a negative answer means "definitely new" and the lookup is
+ * skipped. Recently stored requests are also kept in a small LRU so repeats inside a burst
+ * are answered without Mongo.
+ * <p>
+ * The filter only knows the ids in Mongo at startup plus the ones this node wrote since, so
+ * an id another node stored later would read as new and be called out a second time. Its
+ * negative answers are therefore only used with {@code api.requests.dedup.single-writer=true},
+ * for deployments where one node writes api_requests; otherwise every id that isn't a recent
+ * local hit is looked up in Mongo.
+ */
+@Component
+public class RequestIdDedupFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RequestIdDedupFilter.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ScalableBloomFilter filter;
+    private final Map<String, ApiRequest> recent;
+    private final boolean singleWriter;
+    private volatile boolean ready;
+
+    private final LongAdder definitelyNew = new LongAdder();
+    private final LongAdder recentHits = new LongAdder();
+    private final LongAdder possibleDuplicates = new LongAdder();
+
+    public RequestIdDedupFilter(MongoTemplate mongoTemplate,
+                                @Value("${api.requests.dedup.expected-ids:10000000}") long expectedIds,
+                                @Value("${api.requests.dedup.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${api.requests.dedup.recent-size:10000}") int recentSize,
+                                @Value("${api.requests.dedup.single-writer:false}") boolean singleWriter) {
+        this.mongoTemplate = mongoTemplate;
+        this.singleWriter = singleWriter;
+        this.filter = new ScalableBloomFilter(expectedIds, falsePositiveRate);
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ApiRequest> eldest) {
+                return size() > recentSize;
+            }
+        };
+    }
+
+    /**
+     * Loads every stored requestId in the background; until that finishes every id counts
+     * as a possible duplicate, i.e. behaves as before. Skipped unless single-writer.
+     */
+    @PostConstruct
+    public void rebuildAsync() {
+        if (!singleWriter) {
+            logger.info("Dedup filter disabled, api.requests.dedup.single-writer is not set");
+            return;
+        }
+        Thread loader = new Thread(this::rebuild, "dedup-filter-rebuild");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        // Only requestId is projected, so the unique index covers the scan
+        for (Document doc : mongoTemplate.getCollection("api_requests").find()
+                .projection(Projections.fields(Projections.include("requestId"), Projections.excludeId()))
+                .hint(new Document("requestId", 1))
+                .batchSize(10_000)) {
+            String requestId = doc.getString("requestId");
+            if (requestId != null) {
+                filter.put(requestId);
+                count++;
+            }
+        }
+        ready = true;
+        logger.info("Dedup filter loaded {} request ids in {} ms", count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns a copy of the request if it was stored recently by this node, otherwise null.
+     */
+    public ApiRequest recent(String requestId) {
+        ApiRequest request;
+        synchronized (recent) {
+            request = recent.get(requestId);
+        }
+        if (request == null) return null;
+        recentHits.increment();
+        return new ApiRequest(request);
+    }
+
+    /**
+     * False means the id has definitely never been stored; true means Mongo must be asked.
+     */
+    public boolean mightContain(String requestId) {
+        if (ready && !filter.mightContain(requestId)) {
+            definitelyNew.increment();
+            return false;
+        }
+        possibleDuplicates.increment();
+        return true;
+    }
+
+    /**
+     * Keeps a snapshot of request, so later changes by the caller don't show through.
+     */
+    public void record(String requestId, ApiRequest request) {
+        if (singleWriter) {
+            filter.put(requestId);
+        }
+        ApiRequest snapshot = new ApiRequest(request);
+        synchronized (recent) {
+            recent.put(requestId, snapshot);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getDefinitelyNewCount() {
+        return definitelyNew.sum();
+    }
+
+    public long getRecentHitCount() {
+        return recentHits.sum();
+    }
+
+    public long getPossibleDuplicateCount() {
+        return possibleDuplicates.sum();
+    }
+
+    /**
+     * Bloom filter that adds a larger, stricter stage whenever the current one is full, so the
+     * overall false-positive rate stays bounded however many ids arrive.
+     */
+    static final class ScalableBloomFilter {
+        private static final double TIGHTENING = 0.5;
+
+        private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+        ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+            // The stage rates form a geometric series summing to the requested rate
+            stages.add(new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING)));
+        }
+
+        boolean mightContain(String id) {
+            long h1 = hash1(id);
+            long h2 = hash2(id);
+            for (Stage stage : stages) {
+                if (stage.mightContain(h1, h2)) return true;
+            }
+            return false;
+        }
+
+        void put(String id) {
+            Stage current = stages.get(stages.size() - 1);
+            if (current.count.get() >= current.capacity) {
+                synchronized (this) {
+                    current = stages.get(stages.size() - 1);
+                    if (current.count.get() >= current.capacity) {
+                        current = new Stage(current.capacity * 2, current.falsePositiveRate * TIGHTENING);
+                        stages.add(current);
+                    }
+                }
+            }
+            current.put(hash1(id), hash2(id));
+        }
+
+        // requestIds are SHA-256 hex, so their first 32 hex digits already make two good hashes
+        private static long hash1(String id) {
+            return id.length() >= 32 ? parseHex(id, 0) : mix(id.hashCode());
+        }
+
+        private static long hash2(String id) {
+            return (id.length() >= 32 ? parseHex(id, 16) : mix(id.hashCode() * 0x9E3779B97F4A7C15L)) | 1;
+        }
+
+        private static long parseHex(String s, int from) {
+            long value = 0;
+            for (int i = from; i < from + 16; i++) {
+                value = (value << 4) | Character.digit(s.charAt(i), 16) & 0xF;
+            }
+            return value;
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+
+    private static final class Stage {
+        final long capacity;
+        final double falsePositiveRate;
+        final AtomicLong count = new AtomicLong();
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashes;
+
+        Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) Math.min((m + 63) / 64, Integer.MAX_VALUE - 8));
+            this.bitCount = bits.length() * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        void put(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                while (((old = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, old, old | mask)) {
+                    // lost a race with another writer on this word, retry
+                }
+            }
+            count.incrementAndGet();
+        }
+    }
+}
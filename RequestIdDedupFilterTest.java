@@ -0,0 +1,97 @@
+@ExtendWith(MockitoExtension.class)
+class RequestIdDedupFilterTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    void shouldTreatEveryIdAsPossibleDuplicateUntilLoaded() {
+        // Given
+        RequestIdDedupFilter filter = new RequestIdDedupFilter(mongoTemplate, 1000, 0.01, 10, true);
+
+        // When
+        boolean mightContain = filter.mightContain(sha256("never-stored"));
+
+        // Then
+        assertThat(mightContain).isTrue();
+        assertThat(filter.getPossibleDuplicateCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotLoadOrRuleOutIdsUnlessSingleWriter() {
+        // Given - other nodes may write ids this node's filter never sees
+        RequestIdDedupFilter filter = new RequestIdDedupFilter(mongoTemplate, 1000, 0.01, 10, false);
+
+        // When
+        filter.rebuildAsync();
+        boolean mightContain = filter.mightContain(sha256("never-stored"));
+
+        // Then - Mongo is asked for every id
+        assertThat(mightContain).isTrue();
+        assertThat(filter.isReady()).isFalse();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void shouldNeverMissRecordedIdsWhileGrowing() {
+        // Given - ten times the initial capacity, so the filter has to add stages
+        RequestIdDedupFilter.ScalableBloomFilter filter = new RequestIdDedupFilter.ScalableBloomFilter(1000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(sha256("stored-" + i));
+        }
+
+        // When
+        int missing = 0;
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (!filter.mightContain(sha256("stored-" + i))) missing++;
+            if (filter.mightContain(sha256("new-" + i))) falsePositives++;
+        }
+
+        // Then
+        assertThat(missing).isZero();
+        assertThat(falsePositives).isLessThan(200);
+    }
+
+    @Test
+    void shouldServeRecentRequestsAndEvictOldest() {
+        // Given
+        RequestIdDedupFilter filter = new RequestIdDedupFilter(mongoTemplate, 1000, 0.01, 2, true);
+        ApiRequest first = new ApiRequest("id-1", "success", "/orders", Map.of());
+        filter.record("id-1", first);
+        filter.record("id-2", new ApiRequest("id-2", "success", "/orders", Map.of()));
+
+        // When
+        ApiRequest hit = filter.recent("id-1");
+        filter.record("id-3", new ApiRequest("id-3", "success", "/orders", Map.of()));
+
+        // Then - id-1 was touched last, so id-2 is the one evicted
+        assertThat(hit.getRequestId()).isEqualTo("id-1");
+        assertThat(filter.recent("id-2")).isNull();
+        assertThat(filter.recent("id-1").getRequestId()).isEqualTo("id-1");
+    }
+
+    @Test
+    void shouldNotExposeLaterChangesToCachedRequest() {
+        // Given
+        RequestIdDedupFilter filter = new RequestIdDedupFilter(mongoTemplate, 1000, 0.01, 10, true);
+        ApiRequest request = new ApiRequest("id-1", "pending", "/orders", Map.of());
+        filter.record("id-1", request);
+
+        // When - the caller moves its own copy on, another reader changes the one it got
+        request.setStatus("success");
+        filter.recent("id-1").setStatus("failure");
+
+        // Then
+        assertThat(filter.recent("id-1").getStatus()).isEqualTo("pending");
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationSupport;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking retries for orders-topic. A failed order is forwarded to a delay topic
+ * (orders-topic.retry-1000, -10000, -60000) and consumed again by a separate container once
+ * its delay is up, so the main partition keeps flowing at full rate. Validation failures
+ * skip the retries and go straight to orders-topic.DLT through {@link CustomDltRecoverer}.
+ *
+ * <p>Record mode only: the retry configuration applies to every listener on orders-topic,
+ * and the batch and virtual listeners ack, nack and dead-letter records themselves.
+ *
+ * <p>The recoverers the retry topic feature creates aren't beans, so they are kept here for
+ * {@link HotPathMetricsBinder} to export.
+ */
+@Configuration
+@ConditionalOnExpression("${orders.retry-topics.enabled:false} and '${orders.listener.mode:record}' == 'record'")
+public class RetryTopicConfig extends RetryTopicConfigurationSupport {
+
+    private final List<CustomDltRecoverer> dltRecoverers = new CopyOnWriteArrayList<>();
+
+    @Bean
+    public RetryTopicConfiguration ordersRetryTopics(
+        KafkaTemplate<String, Object> kafkaTemplate,
+        @Value("${orders.retry-topics.partitions:3}") int partitions,
+        @Value("${orders.retry-topics.replication-factor:1}") short replicationFactor
+    ) {
+        return RetryTopicConfigurationBuilder.newInstance()
+            // 1s, 10s, 60s - one delay topic each, named after the delay
+            .exponentialBackoff(1000, 10.0, 60000)
+            .maxAttempts(4)
+            .retryTopicSuffix(".retry")
+            .dltSuffix(".DLT")
+            // Retrying won't fix bad input; the listener wraps the cause, so look down the chain
+            .notRetryOn(List.of(ValidationException.class, CustomDltException.class))
+            .traversingCauses()
+            .includeTopic("orders-topic")
+            .listenerFactory("containerFactory")
+            .autoCreateTopicsWith(partitions, replicationFactor)
+            .create(kafkaTemplate);
+    }
+
+    @Override
+    protected Consumer<DeadLetterPublishingRecovererFactory> configureDeadLetterPublishingContainerFactory() {
+        return factory -> {
+            factory.setDeadLetterPublisherCreator((templateResolver, destinationResolver) -> {
+                CustomDltRecoverer recoverer = new CustomDltRecoverer(templateResolver, destinationResolver);
+                dltRecoverers.add(recoverer);
+                return recoverer;
+            });
+            // The factory installs its own headers function on each recoverer, so ours goes here
+            factory.setHeadersFunction(CustomDltRecoverer::customMessageHeaders);
+        };
+    }
+
+    /**
+     * Recoverers created so far; they are created as the retry endpoints are set up.
+     */
+    public List<CustomDltRecoverer> getDltRecoverers() {
+        return dltRecoverers;
+    }
+}
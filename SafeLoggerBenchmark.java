@@ -0,0 +1,70 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller-side cost of {@link SafeLogger} across message sizes, mixing ASCII with 2-, 3- and
+ * 4-byte characters. The sink drops when full so the numbers are what the request thread
+ * pays, not appender throughput; chunkEnds isolates the splitting itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SafeLoggerBenchmark {
+
+    @Param({"1024", "65536", "5242880"})
+    public int sizeChars;
+
+    private AsyncLogSink sink;
+    private SafeLogger safeLogger;
+    private String message;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sink = new AsyncLogSink("bench-logger", 4096, AsyncLogSink.Policy.DROP, 0);
+        safeLogger = new SafeLogger(sink);
+
+        String pattern = "{\"orderId\":\"order-42\",\"city\":\"München\",\"note\":\"日本語\",\"emoji\":\"😀\"},";
+        StringBuilder text = new StringBuilder(sizeChars + pattern.length());
+        while (text.length() < sizeChars) {
+            text.append(pattern);
+        }
+        message = text.substring(0, sizeChars);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        sink.close();
+    }
+
+    @Benchmark
+    public void safeLog() {
+        safeLogger.safeLog(message);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public void safeLogSimple() {
+        safeLogger.safeLogSimple(message);
+    }
+
+    @Benchmark
+    public int[] chunkEnds() {
+        return Utf8Chunker.chunkEnds(message, 16 * 1024);
+    }
+}
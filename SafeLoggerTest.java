@@ -0,0 +1,39 @@
+@ExtendWith(MockitoExtension.class)
+class SafeLoggerTest {
+
+    @Mock
+    private AsyncLogSink sink;
+
+    @Captor
+    private ArgumentCaptor<List<AsyncLogSink.Line>> lines;
+
+    @Test
+    void shouldSubmitSmallMessageAsSingleLine() {
+        // Given
+        SafeLogger safeLogger = new SafeLogger(sink);
+
+        // When
+        safeLogger.safeLog("order 123 processed");
+
+        // Then
+        verify(sink).submit(any(Logger.class), eq(AsyncLogSink.Level.INFO), eq("{}"), eq("order 123 processed"));
+        verify(sink, never()).submitAll(any(), any());
+    }
+
+    @Test
+    void shouldSubmitAllChunksAndSummaryAsOneMessage() {
+        // Given
+        SafeLogger safeLogger = new SafeLogger(sink);
+        String message = "x".repeat(40 * 1024);
+
+        // When
+        safeLogger.safeLog(message);
+
+        // Then - three 16KB parts and the summary, handed over in a single call
+        verify(sink).submitAll(any(Logger.class), lines.capture());
+        assertThat(lines.getValue()).hasSize(4);
+        assertThat(lines.getValue().get(0).args()).containsExactly(1, 3, message.substring(0, 16 * 1024));
+        assertThat(lines.getValue().get(3).level()).isEqualTo(AsyncLogSink.Level.WARN);
+        verify(sink, never()).submit(any(), any(), any(), any(Object[].class));
+    }
+}
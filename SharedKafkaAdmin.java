@@ -0,0 +1,154 @@
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.DescribeClusterOptions;
+import org.apache.kafka.clients.admin.DescribeClusterResult;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * One long-lived AdminClient per bootstrap address, shared by every health check in the JVM.
+ * Cluster description and topic names are cached for a short TTL, and callers arriving while
+ * a lookup is in flight share it, so however often pods probe, the brokers see at most one
+ * metadata request per TTL. Everything returns {@link KafkaFuture}s; nothing here blocks.
+ *
+ * <p>Get one with {@link #shared} and {@link #close} it when done; the client is closed
+ * when its last user lets go.
+ */
+public class SharedKafkaAdmin implements AutoCloseable {
+
+    private static final Map<String, SharedKafkaAdmin> SHARED = new ConcurrentHashMap<>();
+
+    private final String bootstrapServers;
+    private final AdminClient adminClient;
+    private final int requestTimeoutMs;
+    private final long cacheTtlMs;
+    private int users;
+
+    private volatile Cached<ClusterSnapshot> cluster;
+    private volatile Cached<Set<String>> topicNames;
+
+    public record ClusterSnapshot(String clusterId, Node controller, Collection<Node> nodes) {
+    }
+
+    private record Cached<T>(KafkaFuture<T> future, long expiresAt) {
+    }
+
+    private SharedKafkaAdmin(String bootstrapServers, int requestTimeoutMs, long cacheTtlMs) {
+        this.bootstrapServers = bootstrapServers;
+        this.requestTimeoutMs = requestTimeoutMs;
+        this.cacheTtlMs = cacheTtlMs;
+        Properties props = new Properties();
+        props.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, requestTimeoutMs);
+        props.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, requestTimeoutMs);
+        props.put(AdminClientConfig.RETRIES_CONFIG, 3); // Retry transient errors
+        this.adminClient = AdminClient.create(props);
+    }
+
+    /**
+     * Returns the shared admin for these brokers, creating it on first use. Callers must
+     * {@link #close} it when they are done.
+     */
+    public static SharedKafkaAdmin shared(String bootstrapServers, int requestTimeoutMs) {
+        return shared(bootstrapServers, requestTimeoutMs, 2000);
+    }
+
+    public static SharedKafkaAdmin shared(String bootstrapServers, int requestTimeoutMs, long cacheTtlMs) {
+        return SHARED.compute(bootstrapServers, (servers, existing) -> {
+            SharedKafkaAdmin current = existing != null ? existing
+                : new SharedKafkaAdmin(servers, requestTimeoutMs, cacheTtlMs);
+            current.users++;
+            return current;
+        });
+    }
+
+    /**
+     * The underlying client, for calls this class doesn't cache. Don't close it.
+     */
+    public AdminClient admin() {
+        return adminClient;
+    }
+
+    public int getRequestTimeoutMs() {
+        return requestTimeoutMs;
+    }
+
+    public KafkaFuture<ClusterSnapshot> cluster() {
+        Cached<ClusterSnapshot> current = cluster;
+        if (isFresh(current)) return current.future();
+        synchronized (this) {
+            if (!isFresh(cluster)) {
+                cluster = new Cached<>(describeCluster(), System.currentTimeMillis() + cacheTtlMs);
+            }
+            return cluster.future();
+        }
+    }
+
+    public KafkaFuture<Set<String>> topicNames() {
+        Cached<Set<String>> current = topicNames;
+        if (isFresh(current)) return current.future();
+        synchronized (this) {
+            if (!isFresh(topicNames)) {
+                topicNames = new Cached<>(listTopics(), System.currentTimeMillis() + cacheTtlMs);
+            }
+            return topicNames.future();
+        }
+    }
+
+    /**
+     * Drops cached metadata so the next call goes to the brokers.
+     */
+    public void invalidate() {
+        cluster = null;
+        topicNames = null;
+    }
+
+    private KafkaFuture<ClusterSnapshot> describeCluster() {
+        DescribeClusterResult result = adminClient.describeCluster(new DescribeClusterOptions().timeoutMs(requestTimeoutMs));
+        return KafkaFuture.allOf(result.clusterId(), result.controller(), result.nodes())
+            .thenApply(ignored -> new ClusterSnapshot(
+                completed(result.clusterId()), completed(result.controller()), completed(result.nodes())));
+    }
+
+    private KafkaFuture<Set<String>> listTopics() {
+        return adminClient.listTopics(new ListTopicsOptions().timeoutMs(requestTimeoutMs)).names();
+    }
+
+    // A failed lookup is never served from the cache; the next caller retries
+    private static boolean isFresh(Cached<?> cached) {
+        return cached != null
+            && System.currentTimeMillis() < cached.expiresAt()
+            && !cached.future().isCompletedExceptionally();
+    }
+
+    @Override
+    public void close() {
+        boolean[] last = new boolean[1];
+        SHARED.computeIfPresent(bootstrapServers, (servers, existing) -> {
+            if (existing != this) return existing;
+            last[0] = --users == 0;
+            return last[0] ? null : existing;
+        });
+        if (last[0]) {
+            adminClient.close(Duration.ofMillis(requestTimeoutMs));
+        }
+    }
+
+    // Only called once allOf has completed normally, so the value is already there
+    private static <T> T completed(KafkaFuture<T> future) {
+        try {
+            return future.getNow(null);
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+/**
+ * Splits text into pieces of at most maxBytes once UTF-8 encoded, in a single pass over
+ * the chars and without encoding anything. A surrogate pair is always kept in one piece;
+ * a lone surrogate counts as 3 bytes, which over-counts the '?' Java encodes it as, so
+ * chunks stay within the limit.
+ */
+public final class Utf8Chunker {
+
+    private Utf8Chunker() {
+    }
+
+    /**
+     * UTF-8 encoded length of text, without encoding it.
+     */
+    public static long utf8Length(CharSequence text) {
+        long bytes = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * End index (exclusive) of each chunk, in order; chunk i is
+     * {@code text.substring(i == 0 ? 0 : ends[i - 1], ends[i])}. Empty text gives no chunks.
+     */
+    public static int[] chunkEnds(CharSequence text, int maxBytes) {
+        if (maxBytes < 4) {
+            throw new IllegalArgumentException("maxBytes must be at least 4 to hold any code point: " + maxBytes);
+        }
+        int length = text.length();
+        // Every chunk but the last holds at least maxBytes / 4 chars
+        int[] ends = new int[Math.max(1, length / (maxBytes / 4) + 1)];
+        int count = 0;
+        int chunkBytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int width;
+            int chars = 1;
+            if (c < 0x80) {
+                width = 1;
+            } else if (c < 0x800) {
+                width = 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                width = 4;
+                chars = 2;
+            } else {
+                width = 3;
+            }
+            if (chunkBytes + width > maxBytes) {
+                ends[count++] = i;
+                chunkBytes = 0;
+            }
+            chunkBytes += width;
+            i += chars - 1;
+        }
+        if (length > 0) {
+            ends[count++] = length;
+        }
+        return count == ends.length ? ends : Arrays.copyOf(ends, count);
+    }
+}
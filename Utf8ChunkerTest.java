@@ -0,0 +1,66 @@
+class Utf8ChunkerTest {
+
+    @Test
+    void shouldMatchEncodedLength() {
+        // Given
+        String text = "plain ascii, café, 日本語, emoji 😀😀 and more";
+
+        // When
+        long length = Utf8Chunker.utf8Length(text);
+
+        // Then
+        assertThat(length).isEqualTo(text.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void shouldKeepEveryChunkWithinLimitAndReassembleExactly() {
+        // Given
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            text.append("line ").append(i).append(" é 日 😀\n");
+        }
+        String message = text.toString();
+        int maxBytes = 1024;
+
+        // When
+        int[] ends = Utf8Chunker.chunkEnds(message, maxBytes);
+
+        // Then
+        StringBuilder reassembled = new StringBuilder();
+        int start = 0;
+        for (int end : ends) {
+            String chunk = message.substring(start, end);
+            assertThat(chunk.getBytes(StandardCharsets.UTF_8).length).isLessThanOrEqualTo(maxBytes);
+            reassembled.append(chunk);
+            start = end;
+        }
+        assertThat(reassembled.toString()).isEqualTo(message);
+    }
+
+    @Test
+    void shouldNeverSplitSurrogatePair() {
+        // Given - 4-byte emoji with an odd offset so boundaries fall on pair halves
+        String message = "a" + "😀".repeat(100);
+
+        // When
+        int[] ends = Utf8Chunker.chunkEnds(message, 10);
+
+        // Then
+        for (int end : ends) {
+            assertThat(end == message.length() || !Character.isLowSurrogate(message.charAt(end))).isTrue();
+        }
+        assertThat(ends).hasSize(50); // "a" + 2 emoji, then 2 per chunk
+    }
+
+    @Test
+    void shouldReturnOneChunkWhenWithinLimitAndNoneForEmpty() {
+        assertThat(Utf8Chunker.chunkEnds("short", 16)).containsExactly(5);
+        assertThat(Utf8Chunker.chunkEnds("", 16)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectLimitBelowOneCodePoint() {
+        assertThatThrownBy(() -> Utf8Chunker.chunkEnds("x", 3))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Turns cache values into the bytes stored by {@link MongoDBCache} and back.
+ */
+public interface ValueCodec {
+    byte[] encode(Object value);
+    Object decode(byte[] bytes);
+}
@@ -0,0 +1,176 @@
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands each order to the blocking-work executor (virtual threads on Java 21+) and returns
+ * to the consumer straight away, enabled with {@code orders.listener.mode=virtual}.
+ * Records of the same key are chained so they still run in order. When too many records
+ * are in flight the container is paused, and resumed once half of them have finished.
+ * Acks come back out of order; the container's async acks only commit an offset once
+ * every record before it has been acked. A record that can't be dead-lettered after
+ * dltAttempts tries stops the container: its offset is never committed, so the partition is
+ * redelivered from it once another instance takes it over or this one restarts. Later records
+ * of its key are skipped as well, so none of them is processed ahead of it.
+ */
+@Service
+@ConditionalOnProperty(name = "orders.listener.mode", havingValue = "virtual")
+public class VirtualThreadOrderListener {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadOrderListener.class);
+    private static final String LISTENER_ID = "orders-virtual";
+
+    private final OrderService orderService;
+    private final CustomDltRecoverer dltRecoverer;
+    private final KafkaListenerEndpointRegistry registry;
+    private final HotPathMetrics metrics;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final int dltAttempts;
+    private final long dltBackoffMs;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicBoolean paused = new AtomicBoolean();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    // Last queued task per key; the next record of that key runs after it. A failed tail is
+    // left in place, so every later record of the key fails with it instead of running
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    public VirtualThreadOrderListener(OrderService orderService,
+                                      CustomDltRecoverer dltRecoverer,
+                                      KafkaListenerEndpointRegistry registry,
+                                      HotPathMetrics metrics,
+                                      @Qualifier("blockingWorkExecutor") ExecutorService executor,
+                                      @Value("${orders.virtual.max-in-flight:1000}") int maxInFlight,
+                                      @Value("${orders.virtual.dlt-attempts:3}") int dltAttempts,
+                                      @Value("${orders.virtual.dlt-backoff-ms:500}") long dltBackoffMs) {
+        this.orderService = orderService;
+        this.dltRecoverer = dltRecoverer;
+        this.registry = registry;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.dltAttempts = Math.max(1, dltAttempts);
+        this.dltBackoffMs = dltBackoffMs;
+    }
+
+    @KafkaListener(id = LISTENER_ID, topics = "orders-topic", containerFactory = "virtualThreadContainerFactory")
+    public void processOrder(ConsumerRecord<String, Order> record, Acknowledgment ack) {
+        String key = keyOf(record);
+        int current = inFlight.incrementAndGet();
+        // Measured from receipt, so time spent queued behind the same key counts too
+        long start = System.nanoTime();
+
+        CompletableFuture<Void> task = tails.compute(key, (k, tail) ->
+            (tail == null ? CompletableFuture.<Void>completedFuture(null) : tail)
+                .thenRunAsync(() -> handle(record, ack, start), executor));
+        task.whenComplete((ignored, error) -> {
+            if (error == null) {
+                tails.remove(key, task);
+            }
+            finished();
+        });
+
+        // Records already fetched are still delivered after a pause, so the real bound is
+        // maxInFlight plus one poll (max.poll.records)
+        if (current >= maxInFlight && paused.compareAndSet(false, true)) {
+            container().pause();
+            // The work may have drained before we paused, with nobody left to resume
+            resumeIfDrained();
+        }
+    }
+
+    private void finished() {
+        inFlight.decrementAndGet();
+        resumeIfDrained();
+    }
+
+    private void resumeIfDrained() {
+        if (inFlight.get() <= maxInFlight / 2 && paused.compareAndSet(true, false)) {
+            container().resume();
+        }
+    }
+
+    private void handle(ConsumerRecord<String, Order> record, Acknowledgment ack, long start) {
+        try {
+            orderService.processOrder(record.value());
+            metrics.orderProcessed(start, true);
+        } catch (ValidationException ex) {
+            metrics.orderProcessed(start, false);
+            if (!recover(record, new CustomDltException("Custom DLT message: " + ex.getMessage(), ex))) {
+                throw notDeadLettered(record);
+            }
+        } catch (Exception ex) {
+            metrics.orderProcessed(start, false);
+            if (!recover(record, ex)) {
+                throw notDeadLettered(record);
+            }
+        }
+        ack.acknowledge();
+    }
+
+    // Fails the key's chain, so the records queued behind this one are skipped rather than run out of order
+    private static IllegalStateException notDeadLettered(ConsumerRecord<String, Order> record) {
+        return new IllegalStateException("Order at " + record.topic() + "-" + record.partition() + "@"
+            + record.offset() + " was not dead-lettered, holding back key " + keyOf(record));
+    }
+
+    private boolean recover(ConsumerRecord<String, Order> record, Exception cause) {
+        long backoff = dltBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // Waits for the DLT send, so the ack never commits a dead letter that was lost
+                dltRecoverer.recoverAsync(record, new ListenerExecutionFailedException("Order processing failed", cause)).join();
+                return true;
+            } catch (Exception e) {
+                if (attempt >= dltAttempts) {
+                    logger.error("Failed to send order {} at {}-{}@{} to the DLT after {} attempts, stopping the listener",
+                        keyOf(record), record.topic(), record.partition(), record.offset(), attempt, e);
+                    stopContainer();
+                    return false;
+                }
+                logger.warn("Failed to send order {} at {}-{}@{} to the DLT, retrying in {} ms: {}",
+                    keyOf(record), record.topic(), record.partition(), record.offset(), backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    stopContainer();
+                    return false;
+                }
+                backoff *= 2;
+            }
+        }
+    }
+
+    // Left unacked, the record holds back every later commit on its partition; stopping hands
+    // the partitions to another instance (or a restart), which redelivers from the record
+    private void stopContainer() {
+        if (stopped.compareAndSet(false, true)) {
+            container().stop(() -> logger.warn("Listener {} stopped after a DLT failure", LISTENER_ID));
+        }
+    }
+
+    private MessageListenerContainer container() {
+        return registry.getListenerContainer(LISTENER_ID);
+    }
+
+    private static String keyOf(ConsumerRecord<String, Order> record) {
+        if (record.key() != null) return record.key();
+        return record.value() != null ? record.value().orderId() : "";
+    }
+}
@@ -0,0 +1,91 @@
+@ExtendWith(MockitoExtension.class)
+class VirtualThreadOrderListenerTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private CustomDltRecoverer dltRecoverer;
+
+    @Mock
+    private KafkaListenerEndpointRegistry registry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private VirtualThreadOrderListener listener;
+
+    @BeforeEach
+    void setup() {
+        listener = new VirtualThreadOrderListener(orderService, dltRecoverer, registry, new HotPathMetrics(),
+            executor, 1000, 3, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldAckInvalidOrderOnceDeadLettered() {
+        // Given
+        Order invalidOrder = new Order("456", -50.0);
+        ConsumerRecord<String, Order> invalid = new ConsumerRecord<>("orders-topic", 0, 0, "456", invalidOrder);
+        doThrow(new ValidationException("Invalid amount")).when(orderService).processOrder(invalidOrder);
+        when(dltRecoverer.recoverAsync(eq(invalid), any(Exception.class)))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        listener.processOrder(invalid, ack);
+
+        // Then
+        verify(ack, timeout(1_000)).acknowledge();
+        verify(dltRecoverer).recoverAsync(eq(invalid), any(Exception.class));
+    }
+
+    @Test
+    void shouldRetryDltSendBeforeGivingUp() {
+        // Given - the first send fails, the retry gets through
+        Order invalidOrder = new Order("456", -50.0);
+        ConsumerRecord<String, Order> invalid = new ConsumerRecord<>("orders-topic", 0, 0, "456", invalidOrder);
+        doThrow(new ValidationException("Invalid amount")).when(orderService).processOrder(invalidOrder);
+        when(dltRecoverer.recoverAsync(eq(invalid), any(Exception.class)))
+            .thenReturn(CompletableFuture.failedFuture(new KafkaException("DLT unavailable")))
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        listener.processOrder(invalid, ack);
+
+        // Then
+        verify(ack, timeout(1_000)).acknowledge();
+        verify(dltRecoverer, times(2)).recoverAsync(eq(invalid), any(Exception.class));
+        verifyNoInteractions(registry);
+    }
+
+    @Test
+    void shouldStopContainerAndHoldBackKeyWhenDltSendKeepsFailing() {
+        // Given
+        Order invalidOrder = new Order("456", -50.0);
+        ConsumerRecord<String, Order> first = new ConsumerRecord<>("orders-topic", 0, 0, "456", invalidOrder);
+        ConsumerRecord<String, Order> second = new ConsumerRecord<>("orders-topic", 0, 1, "456", invalidOrder);
+        doThrow(new ValidationException("Invalid amount")).when(orderService).processOrder(invalidOrder);
+        when(dltRecoverer.recoverAsync(any(), any(Exception.class)))
+            .thenAnswer(invocation -> CompletableFuture.failedFuture(new KafkaException("DLT unavailable")));
+        when(registry.getListenerContainer("orders-virtual")).thenReturn(container);
+
+        // When
+        listener.processOrder(first, ack);
+        listener.processOrder(second, ack);
+
+        // Then - every attempt used for the first record, the second never processed ahead of it
+        verify(container, timeout(1_000)).stop(any(Runnable.class));
+        verify(dltRecoverer, after(200).times(3)).recoverAsync(eq(first), any(Exception.class));
+        verify(dltRecoverer, never()).recoverAsync(eq(second), any(Exception.class));
+        verify(orderService, times(1)).processOrder(invalidOrder);
+        verify(ack, never()).acknowledge();
+    }
+}
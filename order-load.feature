@@ -0,0 +1,22 @@
+@load
+Feature: Order pipeline throughput and latency
+  Budgets are for the embedded broker on a developer machine; a regression past them fails the build.
+
+  Scenario: Sustained mixed load with key skew stays within budgets
+    Given order keys are drawn from 100 keys with 0.2 of traffic on the hottest key
+    And 2% of orders are invalid
+    When 100000 orders are sent to "orders-topic" at 5000/s
+    Then all orders should be delivered within 60 seconds
+    And the p50 latency into "orders-success-topic" should be at most 50 ms
+    And the p99 latency into "orders-success-topic" should be at most 250 ms
+    And the p999 latency into "orders-success-topic" should be at most 1000 ms
+    And the p99 latency into "orders-topic.DLT" should be at most 500 ms
+    And the throughput into "orders-success-topic" should be at least 4500 orders per second
+
+  Scenario: Hot key burst does not starve the DLT
+    Given order keys are drawn from 10 keys with 0.9 of traffic on the hottest key
+    And 20% of orders are invalid
+    When 20000 orders are sent to "orders-topic" at 10000/s
+    Then all orders should be delivered within 60 seconds
+    And the p99 latency into "orders-success-topic" should be at most 1000 ms
+    And the p99 latency into "orders-topic.DLT" should be at most 1000 ms